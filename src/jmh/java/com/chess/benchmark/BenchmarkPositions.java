@@ -0,0 +1,31 @@
+package com.chess.benchmark;
+
+import com.chess.engine.Position;
+
+/** Fixed position suite shared by all benchmarks so numbers stay comparable between releases. */
+final class BenchmarkPositions {
+
+    static final String[] FENS = {
+            Position.START_FEN,
+            // Kiwipete: castling both ways, pins, en passant
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            // Queen's Gambit Declined middlegame
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w KQ - 0 1",
+            // Open Italian middlegame
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            // Rook endgame
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            // White in check
+            "rnb1kbnr/pppp1ppp/8/4p3/5PPq/8/PPPPP2P/RNBQKBNR w KQkq - 1 3"
+    };
+
+    private BenchmarkPositions() {
+    }
+
+    static Position[] load() {
+        Position[] positions = new Position[FENS.length];
+        for (int i = 0; i < FENS.length; i++)
+            positions[i] = Position.fromFen(FENS[i]);
+        return positions;
+    }
+}
@@ -0,0 +1,94 @@
+package com.chess.benchmark;
+
+import com.chess.engine.EvalCache;
+import com.chess.engine.Evaluator;
+import com.chess.engine.MoveGenerator;
+import com.chess.engine.Perft;
+import com.chess.engine.Position;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-position costs of the engine primitives. Each op covers the whole suite, so divide by
+ * {@code BenchmarkPositions.FENS.length} for a single position.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGeneratorBenchmark {
+
+    private Position[] positions;
+    private final MoveGenerator generator = new MoveGenerator();
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final EvalCache evalCache = new EvalCache();
+
+    @Setup
+    public void setup() {
+        positions = BenchmarkPositions.load();
+    }
+
+    @Benchmark
+    public int generateLegal() {
+        int total = 0;
+        for (Position pos : positions)
+            total += generator.generateLegal(pos, moves, 0);
+        return total;
+    }
+
+    @Benchmark
+    public int generatePseudoLegal() {
+        int total = 0;
+        for (Position pos : positions)
+            total += generator.generatePseudoLegal(pos, moves, 0);
+        return total;
+    }
+
+    @Benchmark
+    public void isKingInCheck(Blackhole bh) {
+        for (Position pos : positions)
+            bh.consume(pos.isInCheck());
+    }
+
+    @Benchmark
+    public int evaluateBoard() {
+        int total = 0;
+        for (Position pos : positions)
+            total += Evaluator.evaluate(pos);
+        return total;
+    }
+
+    /** Same suite through a warm {@link EvalCache}, i.e. the cost of a cache hit. */
+    @Benchmark
+    public int evaluateCached() {
+        int total = 0;
+        for (Position pos : positions)
+            total += evalCache.evaluate(pos);
+        return total;
+    }
+
+    /** Reports leaf nodes per second as the "nodes" secondary result. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class NodeCounter {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void perft(NodeCounter counter) {
+        Perft perft = new Perft();
+        for (Position pos : positions)
+            counter.nodes += perft.perft(pos, 3);
+    }
+}
@@ -0,0 +1,49 @@
+package com.chess.benchmark;
+
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.service.ChessAI;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@link ChessAI#getBestMove} calls in deterministic mode with a fixed node budget, so every run does
+ * the same work. Time per op therefore tracks nodes per second of the whole search stack.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    private static final long NODE_BUDGET = 200_000;
+    private static final long GENEROUS_MOVETIME_MS = 10_000;
+
+    @Param({ "0", "1", "2", "3", "4", "5" })
+    public int position;
+
+    private ChessAI ai;
+    private Board board;
+    private boolean whiteToMove;
+
+    @Setup
+    public void setup() {
+        ai = new ChessAI(16, 1, true, "all");
+        com.chess.engine.Position pos = com.chess.engine.Position.fromFen(BenchmarkPositions.FENS[position]);
+        board = pos.toBoard();
+        whiteToMove = pos.isWhiteToMove();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ai.shutdown();
+    }
+
+    @Benchmark
+    public Move getBestMove() {
+        return ai.getBestMove(board, "HARD", whiteToMove, GENEROUS_MOVETIME_MS, NODE_BUDGET);
+    }
+}
@@ -0,0 +1,68 @@
+package com.chess.benchmark;
+
+import com.chess.engine.MoveGenerator;
+import com.chess.engine.Position;
+import com.chess.engine.SearchOptions;
+import com.chess.engine.Searcher;
+import com.chess.engine.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-depth searches over the whole suite with one selective-search setting at a time. Time per op shows
+ * the wall-clock effect and the "nodes" secondary result shows the node savings against {@code none}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SelectiveSearchBenchmark {
+
+    private static final int DEPTH = 6;
+
+    @Param({ "none", "null-move", "lmr", "futility", "reverse-futility", "all" })
+    public String pruning;
+
+    private Position[] positions;
+    private int[][] rootMoves;
+    private int[] rootCounts;
+    private SearchOptions options;
+
+    @Setup
+    public void setup() {
+        positions = BenchmarkPositions.load();
+        rootMoves = new int[positions.length][MoveGenerator.MAX_MOVES];
+        rootCounts = new int[positions.length];
+        MoveGenerator generator = new MoveGenerator();
+        for (int i = 0; i < positions.length; i++)
+            rootCounts[i] = generator.generateLegal(positions[i], rootMoves[i], 0);
+        options = SearchOptions.parse(pruning);
+    }
+
+    /** Nodes visited per op, reported as the "nodes" secondary result. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class NodeCounter {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Benchmark
+    public int searchSuite(NodeCounter counter) {
+        int checksum = 0;
+        for (int i = 0; i < positions.length; i++) {
+            // A fresh table per position keeps every op identical
+            Searcher searcher = new Searcher(new TranspositionTable(16), options);
+            checksum += searcher.search(positions[i], rootMoves[i], rootCounts[i], DEPTH);
+            counter.nodes += searcher.getNodes();
+        }
+        return checksum;
+    }
+}
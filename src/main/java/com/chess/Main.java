@@ -2,8 +2,10 @@ package com.chess;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication // This is the most important line!
+@EnableScheduling // Sweeps idle games out of the GameRegistry
 public class Main {
     public static void main(String[] args) {
         SpringApplication.run(Main.class, args);
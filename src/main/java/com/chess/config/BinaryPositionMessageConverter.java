@@ -0,0 +1,84 @@
+package com.chess.config;
+
+import com.chess.dto.GameState;
+import com.chess.engine.Position;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Writes a {@link GameState} in a compact big-endian binary layout when the client sends
+ * {@code Accept: application/x-chess-position}:
+ *
+ * <pre>
+ *  0-15  game id (most then least significant half; zero when absent)
+ * 16-47  board: one nibble per square, a1 first, low nibble first; 0 = empty, else 1 + color * 6 + type
+ *    48  bit 0: black to move; bits 1-4: castling rights (K, Q, k, q)
+ *    49  en passant square (0-63), 0xFF when none
+ *    50  bit 0: success, 1: in check, 2: checkmate, 3: stalemate
+ * 51-52  length of the UTF-8 message that follows
+ * </pre>
+ */
+public class BinaryPositionMessageConverter extends AbstractHttpMessageConverter<GameState> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-chess-position";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+    private static final int HEADER_BYTES = 53;
+
+    public BinaryPositionMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return GameState.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected GameState readInternal(Class<? extends GameState> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Binary requests are not supported", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(GameState state, MediaType contentType) {
+        return (long) encode(state).length;
+    }
+
+    @Override
+    protected void writeInternal(GameState state, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(encode(state));
+    }
+
+    static byte[] encode(GameState state) {
+        Position pos = Position.fromFen(state.getFen());
+        byte[] message = state.getMessage() == null ? new byte[0] : state.getMessage().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + message.length);
+
+        UUID id = state.getGameId() == null ? new UUID(0, 0) : UUID.fromString(state.getGameId());
+        out.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        for (int sq = 0; sq < 64; sq += 2)
+            out.put((byte) (nibble(pos.pieceAt(sq)) | nibble(pos.pieceAt(sq + 1)) << 4));
+        out.put((byte) ((pos.isWhiteToMove() ? 0 : 1) | pos.castlingRights() << 1));
+        out.put((byte) (pos.enPassantSquare() == Position.NO_SQUARE ? 0xFF : pos.enPassantSquare()));
+        out.put((byte) ((state.isSuccess() ? 1 : 0) | (state.isInCheck() ? 2 : 0) | (state.isCheckmate() ? 4 : 0)
+                | (state.isStalemate() ? 8 : 0)));
+        out.putShort((short) message.length).put(message);
+        return out.array();
+    }
+
+    private static int nibble(int piece) {
+        return piece == Position.EMPTY ? 0 : piece + 1;
+    }
+}
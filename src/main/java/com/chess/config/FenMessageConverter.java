@@ -0,0 +1,63 @@
+package com.chess.config;
+
+import com.chess.dto.GameState;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a {@link GameState} as a single FEN line when the client sends {@code Accept: application/x-chess-fen}.
+ * The game id, message and success flag travel as response headers. The message is percent-encoded UTF-8:
+ * printable ASCII other than '%' is sent as is, every other byte as %XX, so no message can break the header.
+ */
+public class FenMessageConverter extends AbstractHttpMessageConverter<GameState> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-chess-fen";
+    public static final MediaType MEDIA_TYPE = new MediaType("application", "x-chess-fen", StandardCharsets.US_ASCII);
+    private static final String HEX = "0123456789ABCDEF";
+
+    public FenMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return GameState.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected GameState readInternal(Class<? extends GameState> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("FEN requests are not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(GameState state, HttpOutputMessage outputMessage) throws IOException {
+        if (state.getGameId() != null)
+            outputMessage.getHeaders().set("X-Game-Id", state.getGameId());
+        outputMessage.getHeaders().set("X-Game-Success", Boolean.toString(state.isSuccess()));
+        if (state.getMessage() != null)
+            outputMessage.getHeaders().set("X-Game-Message", encodeHeader(state.getMessage()));
+        outputMessage.getBody().write((state.getFen() + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static String encodeHeader(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            if (b >= 0x20 && b < 0x7F && b != '%')
+                sb.append((char) b);
+            else
+                sb.append('%').append(HEX.charAt(b >> 4 & 15)).append(HEX.charAt(b & 15));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.chess.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executors AI searches run on: one for AI jobs and /ai-move, and one for streamed analysis, whose searches
+ * last far longer and so must not take the workers or queue slots that moves wait for. Searches are CPU-bound,
+ * so they get fixed sets of platform threads rather than the virtual threads that serve requests, and bounded
+ * queues: once one is full new searches are rejected instead of piling up behind the running ones.
+ */
+@Configuration
+public class SearchExecutorConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor searchExecutor(@Value("${chess.ai.workers:0}") int workers,
+            @Value("${chess.ai.queue-capacity:64}") int queueCapacity) {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        return newExecutor(threads, queueCapacity, "chess-ai-worker-");
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor analysisExecutor(@Value("${chess.analysis.workers:0}") int workers,
+            @Value("${chess.analysis.queue-capacity:4}") int queueCapacity) {
+        int threads = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return newExecutor(threads, queueCapacity, "chess-analysis-");
+    }
+
+    private static ThreadPoolExecutor newExecutor(int threads, int queueCapacity, String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, namePrefix + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -1,23 +1,37 @@
 package com.chess.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private static final Logger log = LoggerFactory.getLogger(WebConfig.class);
+
     @Value("${cors.allowed.origins}")
     private String allowedOrigins;
 
     @Override
     public void addCorsMappings(CorsRegistry registry) {
-        System.out.println("CORS Configured with allowed origins: " + allowedOrigins);
+        log.info("CORS configured with allowed origins: {}", allowedOrigins);
         registry.addMapping("/**")
                 .allowedOriginPatterns(allowedOrigins.split(",")) // Use patterns instead of strict origins
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
                 .allowCredentials(true);
     }
+
+    // Added after Jackson, so JSON stays the default and these only answer an explicit Accept header
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new FenMessageConverter());
+        converters.add(new BinaryPositionMessageConverter());
+    }
 }
@@ -0,0 +1,29 @@
+package com.chess.config;
+
+import com.chess.controller.GameUpdatesHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Value("${cors.allowed.origins}")
+    private String allowedOrigins;
+
+    private final GameUpdatesHandler gameUpdatesHandler;
+
+    public WebSocketConfig(GameUpdatesHandler gameUpdatesHandler) {
+        this.gameUpdatesHandler = gameUpdatesHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(gameUpdatesHandler, "/api/chess/updates", "/api/chess/games/*/updates")
+                .addInterceptors(gameUpdatesHandler)
+                .setAllowedOriginPatterns(allowedOrigins.split(","));
+    }
+}
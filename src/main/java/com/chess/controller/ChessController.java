@@ -1,60 +1,299 @@
 package com.chess.controller;
 
+import com.chess.config.BinaryPositionMessageConverter;
+import com.chess.config.FenMessageConverter;
+import com.chess.dto.AiJobStatus;
 import com.chess.dto.GameState;
+import com.chess.dto.LegalMoves;
 import com.chess.dto.MoveRequest;
+import com.chess.dto.NewGameRequest;
+import com.chess.engine.Position;
+import com.chess.service.AiJob;
+import com.chess.service.AiJobService;
 import com.chess.service.ChessService;
+import com.chess.service.GameRegistry;
+import com.chess.service.GameStateBody;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/chess")
 public class ChessController {
 
+    // Longer than any search may run (ChessAI caps movetime), so a reply only times out when the queue is backed up
+    private static final long AI_MOVE_TIMEOUT_MS = 30_000;
+
     @Autowired
     private ChessService chessService;
 
-    @GetMapping("/show-board")
-    public GameState getBoard() {
-        return chessService.getGameState();
+    // Spring's own mapper, so cached bodies are written exactly like the ones it serializes itself
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * With {@code sincePly}, the history only holds the moves from that ply on; {@code notation=uci} writes them
+     * as "e2e4" rather than SAN. The move, reset and undo endpoints take the same parameters.
+     *
+     * The JSON reply carries an ETag naming the position version, history start and notation. A poll whose If-None-Match still matches gets 304
+     * before any state is built, and each version's body is serialized only once.
+     */
+    @GetMapping(value = "/show-board", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getBoardJson(@RequestParam(defaultValue = "0") int sincePly,
+            @RequestParam(required = false) String notation, WebRequest request) {
+        return getBoardJson(GameRegistry.DEFAULT_GAME_ID, sincePly, notation, request);
+    }
+
+    /** show-board as a FEN line or in the binary encoding, for clients that ask for one of them. */
+    @GetMapping(value = "/show-board", produces = { FenMessageConverter.MEDIA_TYPE_VALUE,
+            BinaryPositionMessageConverter.MEDIA_TYPE_VALUE })
+    public GameState getBoard(@RequestParam(defaultValue = "0") int sincePly,
+            @RequestParam(required = false) String notation) {
+        return getBoard(GameRegistry.DEFAULT_GAME_ID, sincePly, notation);
+    }
+
+    /** Legal moves as from/to bitmasks, for the whole board or, with x and y, for one square. */
+    @GetMapping("/legal-moves")
+    public LegalMoves getLegalMoves(@RequestParam(required = false) Integer x,
+            @RequestParam(required = false) Integer y) {
+        return getLegalMoves(GameRegistry.DEFAULT_GAME_ID, x, y);
     }
 
     @PostMapping("/move")
-    public GameState makeMove(@RequestBody MoveRequest move) {
-        System.out.println("Move Request: " + move.getStartX() + "," + move.getStartY() + " -> " + move.getEndX() + ","
-                + move.getEndY() + " Prom: " + move.getPromotionPiece());
-        return chessService.movePiece(move.getStartX(), move.getStartY(), move.getEndX(), move.getEndY(),
-                move.getPromotionPiece());
+    public GameState makeMove(@RequestBody MoveRequest move, @RequestParam(defaultValue = "0") int sincePly,
+            @RequestParam(required = false) String notation) {
+        return makeMove(GameRegistry.DEFAULT_GAME_ID, move, sincePly, notation);
     }
 
     @PostMapping("/reset")
-    public GameState resetGame() {
-        chessService.resetBoard();
-        return chessService.getGameState();
+    public GameState resetGame(@RequestParam(defaultValue = "0") int sincePly,
+            @RequestParam(required = false) String notation) {
+        return resetGame(GameRegistry.DEFAULT_GAME_ID, sincePly, notation);
     }
 
     @PostMapping("/undo")
-    public GameState undoLastMove() {
-        return chessService.undoLastMove();
+    public GameState undoLastMove(@RequestParam(defaultValue = "0") int sincePly,
+            @RequestParam(required = false) String notation) {
+        return undoLastMove(GameRegistry.DEFAULT_GAME_ID, sincePly, notation);
     }
 
     @Autowired
-    private com.chess.service.ChessAI chessAI;
+    private AiJobService aiJobService;
 
+    /** Replies once the search is done; the request thread is released while it runs. */
     @PostMapping("/ai-move")
     @CrossOrigin(origins = "http://localhost:5173")
-    public com.chess.model.Move getAiMove(@RequestBody com.chess.dto.AiMoveRequest request) {
+    public DeferredResult<com.chess.model.Move> getAiMove(@RequestBody com.chess.dto.AiMoveRequest request) {
+        AiJob job = submit(request);
+        if (job == null) {
+            DeferredResult<com.chess.model.Move> reply = new DeferredResult<>();
+            reply.setResult(null);
+            return reply;
+        }
+        return await(job);
+    }
+
+    /** Same as /ai-move, but answers 202 with a job id at once; poll GET /ai-jobs/{jobId} for the move. */
+    @PostMapping("/ai-jobs")
+    public ResponseEntity<AiJobStatus> submitAiJob(@RequestBody com.chess.dto.AiMoveRequest request) {
+        AiJob job = submit(request);
+        if (job == null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either fen or gameState is required");
+        return ResponseEntity.accepted().body(toStatus(job));
+    }
+
+    @GetMapping("/ai-jobs/{jobId}")
+    public AiJobStatus getAiJob(@PathVariable UUID jobId) {
+        return toStatus(aiJobService.get(jobId));
+    }
+
+    @DeleteMapping("/ai-jobs/{jobId}")
+    public AiJobStatus cancelAiJob(@PathVariable UUID jobId) {
+        return toStatus(aiJobService.cancel(jobId));
+    }
+
+    // Null when the request carries no position
+    private AiJob submit(com.chess.dto.AiMoveRequest request) {
+        if (request.getFen() != null) {
+            return aiJobService.submit(parseFen(request.getFen()), request.getDifficulty(), request.getMovetimeMs(),
+                    request.getMaxNodes());
+        }
+        if (request.getGameState() == null) {
+            return null;
+        }
+
+        com.chess.model.Board board = new com.chess.model.Board();
+        board.setBoxes(request.getGameState().getBoard()); // Use the deserialized array directly
+
+        return aiJobService.submit(Position.fromBoard(board, request.getGameState().isWhiteTurn()),
+                request.getDifficulty(), request.getMovetimeMs(), request.getMaxNodes());
+    }
+
+    // A client that disconnects or gives up takes its search with it
+    private static DeferredResult<com.chess.model.Move> await(AiJob job) {
+        DeferredResult<com.chess.model.Move> reply = new DeferredResult<>(AI_MOVE_TIMEOUT_MS);
+        reply.onTimeout(job::cancel);
+        reply.onError(e -> job.cancel());
+        job.getResult().whenComplete((move, e) -> {
+            if (e == null)
+                reply.setResult(move);
+            else if (e instanceof CancellationException)
+                reply.setErrorResult(new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Search cancelled: the game changed or the game was removed"));
+            else
+                reply.setErrorResult(e);
+        });
+        return reply;
+    }
+
+    private static AiJobStatus toStatus(AiJob job) {
+        return new AiJobStatus(job.getId().toString(), job.getGameId() == null ? null : job.getGameId().toString(),
+                job.getStatus().name(), job.getMove(), job.getError());
+    }
+
+    // --- Game-scoped endpoints: each client plays its own game, created with POST /games ---
+
+    /** Optional body {@code {fen}} starts the game from that position. */
+    @PostMapping("/games")
+    public GameState createGame(@RequestBody(required = false) NewGameRequest request) {
+        if (request == null || request.getFen() == null)
+            return chessService.createGame();
+        parseFen(request.getFen()); // Reject a bad FEN with 400 before a game is created
+        return chessService.createGame(request.getFen());
+    }
+
+    @DeleteMapping("/games/{gameId}")
+    public ResponseEntity<Void> deleteGame(@PathVariable UUID gameId) {
+        return chessService.deleteGame(gameId) ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping(value = "/games/{gameId}/show-board", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getBoardJson(@PathVariable UUID gameId,
+            @RequestParam(defaultValue = "0") int sincePly, @RequestParam(required = false) String notation,
+            WebRequest request) {
+        String eTag = badRequestOnIllegalArgument(() -> chessService.getETag(gameId, sincePly, notation));
+        if (request.checkNotModified(eTag))
+            return null; // 304, already written
+        GameStateBody body = badRequestOnIllegalArgument(
+                () -> chessService.getGameStateBody(gameId, sincePly, notation, this::toJson));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(body.getETag())
+                .varyBy(HttpHeaders.ACCEPT).body(body.getBody());
+    }
+
+    @GetMapping(value = "/games/{gameId}/show-board", produces = { FenMessageConverter.MEDIA_TYPE_VALUE,
+            BinaryPositionMessageConverter.MEDIA_TYPE_VALUE })
+    public GameState getBoard(@PathVariable UUID gameId, @RequestParam(defaultValue = "0") int sincePly,
+            @RequestParam(required = false) String notation) {
+        return badRequestOnIllegalArgument(() -> chessService.getGameState(gameId, sincePly, notation));
+    }
+
+    @GetMapping("/games/{gameId}/legal-moves")
+    public LegalMoves getLegalMoves(@PathVariable UUID gameId, @RequestParam(required = false) Integer x,
+            @RequestParam(required = false) Integer y) {
+        if (x == null && y == null)
+            return chessService.getLegalMoves(gameId);
+        if (x == null || y == null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Both x and y are required for one square");
         try {
-            if (request.getGameState() == null) {
-                return null;
-            }
+            return chessService.getLegalMoves(gameId, x, y);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @PostMapping("/games/{gameId}/move")
+    public GameState makeMove(@PathVariable UUID gameId, @RequestBody MoveRequest move,
+            @RequestParam(defaultValue = "0") int sincePly,
+            @RequestParam(required = false) String notation) {
+        return badRequestOnIllegalArgument(() -> chessService.movePiece(gameId, move.getStartX(), move.getStartY(),
+                move.getEndX(), move.getEndY(), move.getPromotionPiece(), sincePly, notation));
+    }
+
+    @PostMapping("/games/{gameId}/reset")
+    public GameState resetGame(@PathVariable UUID gameId, @RequestParam(defaultValue = "0") int sincePly,
+            @RequestParam(required = false) String notation) {
+        return badRequestOnIllegalArgument(() -> chessService.resetBoard(gameId, sincePly, notation));
+    }
+
+    @PostMapping("/games/{gameId}/undo")
+    public GameState undoLastMove(@PathVariable UUID gameId, @RequestParam(defaultValue = "0") int sincePly,
+            @RequestParam(required = false) String notation) {
+        return badRequestOnIllegalArgument(() -> chessService.undoLastMove(gameId, sincePly, notation));
+    }
+
+    /**
+     * Searches the server's copy of the game; the request's gameState is ignored. The search is cancelled (409)
+     * if the game changes before it finishes.
+     */
+    @PostMapping("/games/{gameId}/ai-move")
+    public DeferredResult<com.chess.model.Move> getAiMove(@PathVariable UUID gameId,
+            @RequestBody com.chess.dto.AiMoveRequest request) {
+        // The game lock is only held while the position is copied, not during the search
+        return await(aiJobService.submit(gameId, request.getDifficulty(), request.getMovetimeMs(),
+                request.getMaxNodes()));
+    }
 
-            com.chess.model.Board board = new com.chess.model.Board();
-            board.setBoxes(request.getGameState().getBoard()); // Use the deserialized array directly
+    @PostMapping("/games/{gameId}/ai-jobs")
+    public ResponseEntity<AiJobStatus> submitAiJob(@PathVariable UUID gameId,
+            @RequestBody com.chess.dto.AiMoveRequest request) {
+        AiJob job = aiJobService.submit(gameId, request.getDifficulty(), request.getMovetimeMs(),
+                request.getMaxNodes());
+        return ResponseEntity.accepted().body(toStatus(job));
+    }
 
-            return chessAI.getBestMove(board, request.getDifficulty(), request.getGameState().isWhiteTurn());
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw e;
+    @Autowired
+    private com.chess.service.AnalysisService analysisService;
+
+    /** Streams search progress for a FEN position as Server-Sent Events ("info" per depth, then "bestmove"). */
+    @GetMapping(value = "/analysis", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter analyze(@RequestParam String fen, @RequestParam(required = false) Long movetimeMs,
+            @RequestParam(required = false) Long maxNodes) {
+        return analysisService.analyze(parseFen(fen), movetimeMs, maxNodes);
+    }
+
+    @GetMapping(value = "/games/{gameId}/analysis", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter analyze(@PathVariable UUID gameId, @RequestParam(required = false) Long movetimeMs,
+            @RequestParam(required = false) Long maxNodes) {
+        return analysisService.analyze(chessService.getPosition(gameId), movetimeMs, maxNodes);
+    }
+
+    // The game-state calls only throw IllegalArgumentException for a bad sincePly or notation
+    private static <T> T badRequestOnIllegalArgument(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private byte[] toJson(GameState state) {
+        try {
+            return objectMapper.writeValueAsBytes(state);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Position parseFen(String fen) {
+        try {
+            return Position.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 }
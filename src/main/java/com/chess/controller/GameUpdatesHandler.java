@@ -0,0 +1,95 @@
+package com.chess.controller;
+
+import com.chess.service.ChessService;
+import com.chess.service.GameNotFoundException;
+import com.chess.service.GameRegistry;
+import jakarta.websocket.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriTemplate;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * WebSocket endpoint that streams a game's updates: {@code /api/chess/updates} for the default game and
+ * {@code /api/chess/games/{gameId}/updates} for a hosted one. The handshake of an unknown game is answered with
+ * 404. Watchers only listen; anything they send is ignored.
+ */
+@Component
+public class GameUpdatesHandler extends TextWebSocketHandler implements HandshakeInterceptor {
+
+    private static final UriTemplate GAME_PATH = new UriTemplate("/api/chess/games/{gameId}/updates");
+    private static final String GAME_ID = "gameId";
+
+    private final ChessService chessService;
+    private final GameRegistry games;
+    private final long sendTimeoutMs;
+
+    public GameUpdatesHandler(ChessService chessService, GameRegistry games,
+            @Value("${chess.updates.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.chessService = chessService;
+        this.games = games;
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        UUID gameId = GameRegistry.DEFAULT_GAME_ID;
+        Map<String, String> variables = GAME_PATH.match(request.getURI().getPath());
+        if (variables.containsKey(GAME_ID)) {
+            try {
+                gameId = UUID.fromString(variables.get(GAME_ID));
+            } catch (IllegalArgumentException e) {
+                response.setStatusCode(HttpStatus.BAD_REQUEST);
+                return false;
+            }
+        }
+        if (!games.contains(gameId)) {
+            response.setStatusCode(HttpStatus.NOT_FOUND);
+            return false;
+        }
+        attributes.put(GAME_ID, gameId);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler,
+            Exception exception) {
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session containerSession = nativeSession.getNativeSession(Session.class);
+            // Updates go out through the asynchronous endpoint; a send still pending after this fails
+            if (containerSession != null)
+                containerSession.getAsyncRemote().setSendTimeout(sendTimeoutMs);
+        }
+        try {
+            chessService.watch(gameId(session), session);
+        } catch (GameNotFoundException e) {
+            // Removed since the handshake
+            session.close(CloseStatus.GOING_AWAY.withReason("Game removed"));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        chessService.unwatch(gameId(session), session);
+    }
+
+    private static UUID gameId(WebSocketSession session) {
+        return (UUID) session.getAttributes().get(GAME_ID);
+    }
+}
@@ -0,0 +1,66 @@
+package com.chess.dto;
+
+import com.chess.model.Move;
+
+/** Progress of an asynchronous AI search, as returned by the /ai-jobs endpoints. */
+public class AiJobStatus {
+    private String jobId;
+    // Null for a search of a client-supplied position
+    private String gameId;
+    // QUEUED, RUNNING, DONE, CANCELLED or FAILED
+    private String status;
+    // Set once the status is DONE; still null then if the position has no legal move
+    private Move move;
+    private String error;
+
+    public AiJobStatus() {
+    }
+
+    public AiJobStatus(String jobId, String gameId, String status, Move move, String error) {
+        this.jobId = jobId;
+        this.gameId = gameId;
+        this.status = status;
+        this.move = move;
+        this.error = error;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Move getMove() {
+        return move;
+    }
+
+    public void setMove(Move move) {
+        this.move = move;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -2,7 +2,12 @@ package com.chess.dto;
 
 public class AiMoveRequest {
     private GameState gameState;
+    // Alternative to gameState: the position as FEN, which is far cheaper to send and parse
+    private String fen;
     private String difficulty;
+    // Optional search budget; null means the server default for the difficulty
+    private Long movetimeMs;
+    private Long maxNodes;
 
     public AiMoveRequest() {
     }
@@ -20,6 +25,14 @@ public class AiMoveRequest {
         this.gameState = gameState;
     }
 
+    public String getFen() {
+        return fen;
+    }
+
+    public void setFen(String fen) {
+        this.fen = fen;
+    }
+
     public String getDifficulty() {
         return difficulty;
     }
@@ -27,4 +40,20 @@ public class AiMoveRequest {
     public void setDifficulty(String difficulty) {
         this.difficulty = difficulty;
     }
+
+    public Long getMovetimeMs() {
+        return movetimeMs;
+    }
+
+    public void setMovetimeMs(Long movetimeMs) {
+        this.movetimeMs = movetimeMs;
+    }
+
+    public Long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public void setMaxNodes(Long maxNodes) {
+        this.maxNodes = maxNodes;
+    }
 }
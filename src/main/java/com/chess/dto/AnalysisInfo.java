@@ -0,0 +1,86 @@
+package com.chess.dto;
+
+import java.util.List;
+
+/** One "info" event of a streamed analysis: the result of a completed search iteration. */
+public class AnalysisInfo {
+    private int depth;
+    // Centipawns from the side to move's point of view
+    private int score;
+    // Moves to mate (negative when being mated), 0 when score is not a mate score
+    private int mateIn;
+    // Principal variation in UCI notation, best move first
+    private List<String> pv;
+    private long nodes;
+    private long nps;
+    private long timeMs;
+
+    public AnalysisInfo() {
+    }
+
+    public AnalysisInfo(int depth, int score, int mateIn, List<String> pv, long nodes, long nps, long timeMs) {
+        this.depth = depth;
+        this.score = score;
+        this.mateIn = mateIn;
+        this.pv = pv;
+        this.nodes = nodes;
+        this.nps = nps;
+        this.timeMs = timeMs;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public int getMateIn() {
+        return mateIn;
+    }
+
+    public void setMateIn(int mateIn) {
+        this.mateIn = mateIn;
+    }
+
+    public List<String> getPv() {
+        return pv;
+    }
+
+    public void setPv(List<String> pv) {
+        this.pv = pv;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(long nodes) {
+        this.nodes = nodes;
+    }
+
+    public long getNps() {
+        return nps;
+    }
+
+    public void setNps(long nps) {
+        this.nps = nps;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    public void setTimeMs(long timeMs) {
+        this.timeMs = timeMs;
+    }
+}
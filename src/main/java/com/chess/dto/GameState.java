@@ -8,9 +8,18 @@ public class GameState {
     private String message;
     private boolean success;
 
-    private java.util.List<com.chess.model.Move> history;
+    // Moves in SAN (or UCI when asked for), starting at ply historyStart; plyCount is the length of the whole game
+    private java.util.List<String> history;
+    private int historyStart;
+    private int plyCount;
     private boolean inCheck;
     private boolean checkmate;
+    private boolean stalemate;
+    private String gameId;
+    // Position version: changes on every move, reset or undo. show-board also sends it as the ETag
+    private long version;
+    // Forsyth-Edwards Notation of the same position as board, for clients that do not need the object graph
+    private String fen;
 
     public GameState() {
     }
@@ -20,12 +29,12 @@ public class GameState {
     }
 
     public GameState(Spot[][] board, boolean isWhiteTurn, String message, boolean success,
-            java.util.List<com.chess.model.Move> history) {
+            java.util.List<String> history) {
         this(board, isWhiteTurn, message, success, history, false, false);
     }
 
     public GameState(Spot[][] board, boolean isWhiteTurn, String message, boolean success,
-            java.util.List<com.chess.model.Move> history, boolean inCheck, boolean checkmate) {
+            java.util.List<String> history, boolean inCheck, boolean checkmate) {
         this.board = board;
         this.isWhiteTurn = isWhiteTurn;
         this.message = message;
@@ -67,14 +76,30 @@ public class GameState {
         this.success = success;
     }
 
-    public java.util.List<com.chess.model.Move> getHistory() {
+    public java.util.List<String> getHistory() {
         return history;
     }
 
-    public void setHistory(java.util.List<com.chess.model.Move> history) {
+    public void setHistory(java.util.List<String> history) {
         this.history = history;
     }
 
+    public int getHistoryStart() {
+        return historyStart;
+    }
+
+    public void setHistoryStart(int historyStart) {
+        this.historyStart = historyStart;
+    }
+
+    public int getPlyCount() {
+        return plyCount;
+    }
+
+    public void setPlyCount(int plyCount) {
+        this.plyCount = plyCount;
+    }
+
     public boolean isInCheck() {
         return inCheck;
     }
@@ -90,4 +115,36 @@ public class GameState {
     public void setCheckmate(boolean checkmate) {
         this.checkmate = checkmate;
     }
+
+    public boolean isStalemate() {
+        return stalemate;
+    }
+
+    public void setStalemate(boolean stalemate) {
+        this.stalemate = stalemate;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public void setFen(String fen) {
+        this.fen = fen;
+    }
 }
@@ -0,0 +1,151 @@
+package com.chess.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One message on a game's WebSocket channel. A watcher first gets a "state" carrying the whole history, then one
+ * delta per change: "move" with the move just played, "undo", "reset", and "ai-move" when an AI search of the game
+ * finishes. Versions only grow, so a delta whose version is not above the last one seen can be dropped. Fields that
+ * do not apply to a type are left out.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameUpdate {
+    public static final String STATE = "state";
+    public static final String MOVE = "move";
+    public static final String UNDO = "undo";
+    public static final String RESET = "reset";
+    public static final String AI_MOVE = "ai-move";
+
+    private String type;
+    private String gameId;
+    private long version;
+    // Moves played so far; after an undo the client drops the plies from here on
+    private int plyCount;
+    // "move": the move in SAN and UCI; "ai-move": the suggested move in UCI and the job that found it
+    private String san;
+    private String uci;
+    private String jobId;
+    private String fen;
+    private Boolean whiteTurn;
+    private Boolean inCheck;
+    private Boolean checkmate;
+    private Boolean stalemate;
+    // "state" only: every move so far, in SAN
+    private List<String> history;
+
+    public GameUpdate() {
+    }
+
+    public GameUpdate(String type, String gameId, long version, int plyCount) {
+        this.type = type;
+        this.gameId = gameId;
+        this.version = version;
+        this.plyCount = plyCount;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public int getPlyCount() {
+        return plyCount;
+    }
+
+    public void setPlyCount(int plyCount) {
+        this.plyCount = plyCount;
+    }
+
+    public String getSan() {
+        return san;
+    }
+
+    public void setSan(String san) {
+        this.san = san;
+    }
+
+    public String getUci() {
+        return uci;
+    }
+
+    public void setUci(String uci) {
+        this.uci = uci;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public void setFen(String fen) {
+        this.fen = fen;
+    }
+
+    public Boolean getWhiteTurn() {
+        return whiteTurn;
+    }
+
+    public void setWhiteTurn(Boolean whiteTurn) {
+        this.whiteTurn = whiteTurn;
+    }
+
+    public Boolean getInCheck() {
+        return inCheck;
+    }
+
+    public void setInCheck(Boolean inCheck) {
+        this.inCheck = inCheck;
+    }
+
+    public Boolean getCheckmate() {
+        return checkmate;
+    }
+
+    public void setCheckmate(Boolean checkmate) {
+        this.checkmate = checkmate;
+    }
+
+    public Boolean getStalemate() {
+        return stalemate;
+    }
+
+    public void setStalemate(Boolean stalemate) {
+        this.stalemate = stalemate;
+    }
+
+    public List<String> getHistory() {
+        return history;
+    }
+
+    public void setHistory(List<String> history) {
+        this.history = history;
+    }
+}
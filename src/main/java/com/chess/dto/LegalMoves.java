@@ -0,0 +1,64 @@
+package com.chess.dto;
+
+import java.util.Map;
+
+/**
+ * Legal moves of one position as bitmasks: bit {@code x * 8 + y} stands for the square at row x, column y, like
+ * the board array. Masks are written as 16 hex digits, since a JSON number cannot hold 64 bits exactly.
+ */
+public class LegalMoves {
+    private String gameId;
+    // Changes on every move; masks for an older version are stale
+    private long version;
+    // Squares holding a piece with at least one legal move
+    private String from;
+    // Destination mask for each square in from, keyed by square index
+    private Map<Integer, String> to;
+
+    public LegalMoves() {
+    }
+
+    public LegalMoves(String gameId, long version, String from, Map<Integer, String> to) {
+        this.gameId = gameId;
+        this.version = version;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static String toHex(long mask) {
+        String digits = Long.toHexString(mask);
+        return "0000000000000000".substring(digits.length()) + digits;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public Map<Integer, String> getTo() {
+        return to;
+    }
+
+    public void setTo(Map<Integer, String> to) {
+        this.to = to;
+    }
+}
@@ -0,0 +1,21 @@
+package com.chess.dto;
+
+public class NewGameRequest {
+    // Optional starting position; null starts from the usual initial position
+    private String fen;
+
+    public NewGameRequest() {
+    }
+
+    public NewGameRequest(String fen) {
+        this.fen = fen;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public void setFen(String fen) {
+        this.fen = fen;
+    }
+}
@@ -0,0 +1,135 @@
+package com.chess.engine;
+
+/**
+ * Precomputed attack tables. Knights, kings and pawns use one mask per square; sliders walk a
+ * per-direction ray and cut it at the first blocker.
+ */
+public final class Attacks {
+
+    // Ray directions as (row, column) steps. The first four increase the square index.
+    private static final int[][] DIRECTIONS = {
+            { 1, 0 }, { 0, 1 }, { 1, 1 }, { 1, -1 }, // N, E, NE, NW
+            { -1, 0 }, { 0, -1 }, { -1, -1 }, { -1, 1 } // S, W, SW, SE
+    };
+    private static final int N = 0, E = 1, NE = 2, NW = 3, S = 4, W = 5, SW = 6, SE = 7;
+
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    /** PAWN[color][square]: squares a pawn of that color on that square attacks. */
+    static final long[][] PAWN = new long[2][64];
+    static final long[][] RAYS = new long[8][64];
+
+    static {
+        int[][] knightSteps = { { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 } };
+        for (int sq = 0; sq < 64; sq++) {
+            int x = Position.rowOf(sq);
+            int y = Position.columnOf(sq);
+            for (int[] s : knightSteps)
+                KNIGHT[sq] |= bit(x + s[0], y + s[1]);
+            for (int[] d : DIRECTIONS)
+                KING[sq] |= bit(x + d[0], y + d[1]);
+            PAWN[Position.WHITE][sq] = bit(x + 1, y - 1) | bit(x + 1, y + 1);
+            PAWN[Position.BLACK][sq] = bit(x - 1, y - 1) | bit(x - 1, y + 1);
+            for (int dir = 0; dir < 8; dir++) {
+                int cx = x + DIRECTIONS[dir][0];
+                int cy = y + DIRECTIONS[dir][1];
+                while (cx >= 0 && cx < 8 && cy >= 0 && cy < 8) {
+                    RAYS[dir][sq] |= 1L << Position.square(cx, cy);
+                    cx += DIRECTIONS[dir][0];
+                    cy += DIRECTIONS[dir][1];
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    private static long bit(int x, int y) {
+        if (x < 0 || x > 7 || y < 0 || y > 7)
+            return 0L;
+        return 1L << Position.square(x, y);
+    }
+
+    private static long positiveRay(int dir, int sq, long occupied) {
+        long ray = RAYS[dir][sq];
+        long blockers = ray & occupied;
+        if (blockers != 0)
+            ray ^= RAYS[dir][Long.numberOfTrailingZeros(blockers)];
+        return ray;
+    }
+
+    private static long negativeRay(int dir, int sq, long occupied) {
+        long ray = RAYS[dir][sq];
+        long blockers = ray & occupied;
+        if (blockers != 0)
+            ray ^= RAYS[dir][63 - Long.numberOfLeadingZeros(blockers)];
+        return ray;
+    }
+
+    public static long knight(int sq) {
+        return KNIGHT[sq];
+    }
+
+    public static long king(int sq) {
+        return KING[sq];
+    }
+
+    public static long pawn(int color, int sq) {
+        return PAWN[color][sq];
+    }
+
+    public static long rook(int sq, long occupied) {
+        return positiveRay(N, sq, occupied) | positiveRay(E, sq, occupied)
+                | negativeRay(S, sq, occupied) | negativeRay(W, sq, occupied);
+    }
+
+    public static long bishop(int sq, long occupied) {
+        return positiveRay(NE, sq, occupied) | positiveRay(NW, sq, occupied)
+                | negativeRay(SW, sq, occupied) | negativeRay(SE, sq, occupied);
+    }
+
+    public static long queen(int sq, long occupied) {
+        return rook(sq, occupied) | bishop(sq, occupied);
+    }
+
+    /**
+     * True when {@code square} is attacked by {@code byColor}. Looks outward from the square: a knight jump,
+     * king step, pawn diagonal or unobstructed ray that lands on a matching enemy piece means attacked.
+     */
+    public static boolean isSquareAttacked(Position pos, int square, int byColor) {
+        if ((KNIGHT[square] & pos.pieces(byColor, Position.KNIGHT)) != 0)
+            return true;
+        if ((PAWN[byColor ^ 1][square] & pos.pieces(byColor, Position.PAWN)) != 0)
+            return true;
+        if ((KING[square] & pos.pieces(byColor, Position.KING)) != 0)
+            return true;
+        long queens = pos.pieces(byColor, Position.QUEEN);
+        long occupied = pos.occupied();
+        long diagonal = pos.pieces(byColor, Position.BISHOP) | queens;
+        if (diagonal != 0 && (bishop(square, occupied) & diagonal) != 0)
+            return true;
+        long straight = pos.pieces(byColor, Position.ROOK) | queens;
+        return straight != 0 && (rook(square, occupied) & straight) != 0;
+    }
+
+    /** Every piece of either color attacking {@code square}, with sliders seen through {@code occupied}. */
+    public static long attackersTo(Position pos, int square, long occupied) {
+        long knights = pos.pieces(Position.WHITE, Position.KNIGHT) | pos.pieces(Position.BLACK, Position.KNIGHT);
+        long kings = pos.pieces(Position.WHITE, Position.KING) | pos.pieces(Position.BLACK, Position.KING);
+        long queens = pos.pieces(Position.WHITE, Position.QUEEN) | pos.pieces(Position.BLACK, Position.QUEEN);
+        long diagonal = pos.pieces(Position.WHITE, Position.BISHOP) | pos.pieces(Position.BLACK, Position.BISHOP);
+        long straight = pos.pieces(Position.WHITE, Position.ROOK) | pos.pieces(Position.BLACK, Position.ROOK);
+        return (KNIGHT[square] & knights)
+                | (KING[square] & kings)
+                | (PAWN[Position.BLACK][square] & pos.pieces(Position.WHITE, Position.PAWN))
+                | (PAWN[Position.WHITE][square] & pos.pieces(Position.BLACK, Position.PAWN))
+                | (bishop(square, occupied) & (diagonal | queens))
+                | (rook(square, occupied) & (straight | queens));
+    }
+
+    public static boolean isInCheck(Position pos, int color) {
+        int king = pos.kingSquare(color);
+        return king != Position.NO_SQUARE && isSquareAttacked(pos, king, color ^ 1);
+    }
+}
@@ -0,0 +1,236 @@
+package com.chess.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline tool that turns PGN games into an {@link OpeningBook}. Every move played in the first plies of a game
+ * is counted for the position it was played from, scoring 2 when the mover went on to win, 1 for a draw or an
+ * unknown result and 0 for a loss. Moves that only ever lost are left out.
+ *
+ * <pre>
+ * java -cp target/classes com.chess.engine.BookBuilder book.bin games.pgn [more.pgn ...] [--plies 24] [--min-games 1]
+ * </pre>
+ */
+public final class BookBuilder {
+
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final int maxPlies;
+    // position key -> move -> {games, score}
+    private final Map<Long, Map<Integer, int[]>> stats = new HashMap<>();
+    private int games;
+    private int rejectedGames;
+
+    public BookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /** Adds every game in a PGN stream. Games with an unreadable move are kept up to that move. */
+    public void addPgn(Reader pgn) throws IOException {
+        BufferedReader reader = new BufferedReader(pgn);
+        List<String> tokens = new ArrayList<>();
+        String result = "*";
+        String fen = null;
+        boolean inMoves = false;
+        int commentDepth = 0; // Inside {...}, which does not nest
+        int variationDepth = 0; // Inside (...)
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (commentDepth == 0 && variationDepth == 0 && line.startsWith("[")) {
+                if (inMoves) {
+                    addGame(fen, tokens, result);
+                    tokens.clear();
+                    result = "*";
+                    fen = null;
+                    inMoves = false;
+                }
+                String value = tagValue(line);
+                if (line.startsWith("[Result "))
+                    result = value;
+                else if (line.startsWith("[FEN "))
+                    fen = value;
+                continue;
+            }
+            if (line.startsWith("%"))
+                continue; // Escape line
+            StringBuilder token = new StringBuilder();
+            for (int i = 0; i <= line.length(); i++) {
+                char c = i < line.length() ? line.charAt(i) : ' ';
+                if (commentDepth > 0) {
+                    if (c == '}')
+                        commentDepth = 0;
+                    continue;
+                }
+                if (c != '{' && c != ';' && c != '(' && c != ')' && !Character.isWhitespace(c)) {
+                    token.append(c);
+                    continue;
+                }
+                // Any delimiter ends the token, which only counts outside variations
+                if (token.length() > 0 && variationDepth == 0) {
+                    tokens.add(token.toString());
+                    inMoves = true;
+                }
+                token.setLength(0);
+                if (c == '{')
+                    commentDepth = 1;
+                else if (c == ';')
+                    i = line.length() - 1; // Rest-of-line comment
+                else if (c == '(')
+                    variationDepth++;
+                else if (c == ')')
+                    variationDepth = Math.max(0, variationDepth - 1);
+            }
+        }
+        if (inMoves)
+            addGame(fen, tokens, result);
+    }
+
+    private void addGame(String fen, List<String> tokens, String result) {
+        Position pos;
+        try {
+            pos = fen == null ? Position.fromFen(Position.START_FEN) : Position.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            rejectedGames++;
+            return;
+        }
+        games++;
+        int ply = 0;
+        for (String token : tokens) {
+            if (ply >= maxPlies)
+                break;
+            String san = stripMoveNumber(token);
+            if (san.isEmpty() || san.startsWith("$"))
+                continue;
+            if (san.equals("1-0") || san.equals("0-1") || san.equals("1/2-1/2") || san.equals("*"))
+                break;
+            int move = San.parse(pos, san);
+            if (move == Moves.NONE) {
+                rejectedGames++;
+                break;
+            }
+            int[] s = stats.computeIfAbsent(pos.hash(), k -> new HashMap<>()).computeIfAbsent(move, k -> new int[2]);
+            s[0]++;
+            s[1] += score(result, pos.isWhiteToMove());
+            pos.makeMove(move);
+            ply++;
+        }
+    }
+
+    private static int score(String result, boolean white) {
+        switch (result) {
+            case "1-0":
+                return white ? 2 : 0;
+            case "0-1":
+                return white ? 0 : 2;
+            default:
+                return 1;
+        }
+    }
+
+    // "12.e4", "12..." and "12." all leave just the move
+    private static String stripMoveNumber(String token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i)))
+            i++;
+        if (i == 0 || i == token.length() || token.charAt(i) != '.')
+            return token;
+        while (i < token.length() && token.charAt(i) == '.')
+            i++;
+        return token.substring(i);
+    }
+
+    private static String tagValue(String line) {
+        int open = line.indexOf('"');
+        int close = line.lastIndexOf('"');
+        return open >= 0 && close > open ? line.substring(open + 1, close) : "";
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    /** Games with a bad FEN, or cut short at a move that could not be read. */
+    public int getRejectedGames() {
+        return rejectedGames;
+    }
+
+    public int getPositions() {
+        return stats.size();
+    }
+
+    /**
+     * Writes the book, keeping moves played in at least {@code minGames} games.
+     *
+     * @return the number of entries written
+     */
+    public int write(Path file, int minGames) throws IOException {
+        List<long[]> entries = new ArrayList<>(); // {key, move, weight}
+        for (Map.Entry<Long, Map<Integer, int[]>> position : stats.entrySet()) {
+            int maxScore = 0;
+            for (int[] s : position.getValue().values())
+                maxScore = Math.max(maxScore, s[1]);
+            // Scale the whole position down together, so the weights keep their ratios within 16 bits
+            int divisor = (maxScore + MAX_WEIGHT - 1) / MAX_WEIGHT;
+            for (Map.Entry<Integer, int[]> move : position.getValue().entrySet()) {
+                int[] s = move.getValue();
+                int weight = s[1] / Math.max(1, divisor);
+                if (s[0] >= minGames && weight > 0)
+                    entries.add(new long[] { position.getKey(), move.getKey(), weight });
+            }
+        }
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compareUnsigned(a[0], b[0]) : Long.compare(b[2], a[2]));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (long[] e : entries) {
+                out.writeLong(e[0]);
+                out.writeShort((int) e[1]);
+                out.writeShort((int) e[2]);
+                out.writeInt(0);
+            }
+        }
+        return entries.size();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int plies = 24;
+        int minGames = 1;
+        Path output = null;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--plies") && i + 1 < args.length)
+                plies = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--min-games") && i + 1 < args.length)
+                minGames = Integer.parseInt(args[++i]);
+            else if (output == null)
+                output = Path.of(args[i]);
+            else
+                inputs.add(Path.of(args[i]));
+        }
+        if (output == null || inputs.isEmpty()) {
+            System.out.println("Usage: BookBuilder <book.bin> <games.pgn>... [--plies N] [--min-games N]");
+            return;
+        }
+
+        BookBuilder builder = new BookBuilder(plies);
+        for (Path input : inputs) {
+            // Latin-1 reads any byte, and PGN move text is plain ASCII
+            try (Reader reader = Files.newBufferedReader(input, StandardCharsets.ISO_8859_1)) {
+                builder.addPgn(reader);
+            }
+        }
+        int written = builder.write(output, minGames);
+        System.out.println(builder.getGames() + " games (" + builder.getRejectedGames() + " rejected or cut short), "
+                + builder.getPositions() + " positions, " + written + " entries written to " + output);
+    }
+}
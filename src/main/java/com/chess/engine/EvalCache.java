@@ -0,0 +1,102 @@
+package com.chess.engine;
+
+/**
+ * Caches in front of {@link Evaluator} for one searcher. There are two fixed-size tables:
+ * <ul>
+ * <li>A pawn table keyed by {@link Position#pawnHash()}. Pawn structure only changes when a pawn moves or is
+ * captured, so most leaves find their pawn terms here.</li>
+ * <li>A table of whole evaluations keyed by {@link Position#hash()}. It catches transpositions, and
+ * nodes that are scored once in the main search and again when quiescence stands pat.</li>
+ * </ul>
+ *
+ * Each entry is a single long: the upper bits of the key, used as a check, over the cached value in the lower
+ * bits. The index comes from the low bits of the key, so a false hit needs two keys that agree in nearly all of
+ * their bits. A slot is simply overwritten on a miss. The tables are not thread-safe; like the move buffers, every
+ * {@link Searcher} owns its own.
+ */
+public final class EvalCache {
+
+    private static final int PAWN_ENTRIES = 1 << 14;
+    private static final int EVAL_ENTRIES = 1 << 16;
+    // Pawn entries keep the key above a packed middlegame/endgame score, evaluation entries above a short score
+    private static final long PAWN_VALUE_MASK = 0xFFFF_FFFFL;
+    private static final long EVAL_VALUE_MASK = 0xFFFFL;
+
+    private final long[] pawnTable = new long[PAWN_ENTRIES];
+    private final long[] evalTable = new long[EVAL_ENTRIES];
+    private long pawnProbes;
+    private long pawnHits;
+    private long evalProbes;
+    private long evalHits;
+
+    /** Same as {@link Evaluator#evaluate(Position)}, answered from the tables when possible. */
+    public int evaluate(Position pos) {
+        long key = pos.hash();
+        int slot = (int) key & (EVAL_ENTRIES - 1);
+        long entry = evalTable[slot];
+        evalProbes++;
+        if (((entry ^ key) & ~EVAL_VALUE_MASK) == 0) {
+            evalHits++;
+            return (short) entry;
+        }
+        int score = Evaluator.evaluate(pos, pawnStructure(pos));
+        evalTable[slot] = (key & ~EVAL_VALUE_MASK) | (score & EVAL_VALUE_MASK);
+        return score;
+    }
+
+    private int pawnStructure(Position pos) {
+        long key = pos.pawnHash();
+        int slot = (int) key & (PAWN_ENTRIES - 1);
+        long entry = pawnTable[slot];
+        pawnProbes++;
+        // An empty slot matches key 0, which is the pawnless structure and rightly scores 0
+        if (((entry ^ key) & ~PAWN_VALUE_MASK) == 0) {
+            pawnHits++;
+            return (int) entry;
+        }
+        int pawns = Evaluator.pawnStructure(pos);
+        pawnTable[slot] = (key & ~PAWN_VALUE_MASK) | (pawns & PAWN_VALUE_MASK);
+        return pawns;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(pawnTable, 0L);
+        java.util.Arrays.fill(evalTable, 0L);
+        resetCounts();
+    }
+
+    /** Starts the hit counts over and keeps the cached entries. */
+    public void resetCounts() {
+        pawnProbes = 0;
+        pawnHits = 0;
+        evalProbes = 0;
+        evalHits = 0;
+    }
+
+    /** Pawn-structure lookups, made only when the evaluation table misses. */
+    public long getPawnProbes() {
+        return pawnProbes;
+    }
+
+    public long getPawnHits() {
+        return pawnHits;
+    }
+
+    public long getEvalProbes() {
+        return evalProbes;
+    }
+
+    public long getEvalHits() {
+        return evalHits;
+    }
+
+    /** Fraction of pawn lookups answered from the table, 0 before the first one. */
+    public double getPawnHitRate() {
+        return pawnProbes == 0 ? 0 : (double) pawnHits / pawnProbes;
+    }
+
+    /** Fraction of evaluations answered from the table, 0 before the first one. */
+    public double getEvalHitRate() {
+        return evalProbes == 0 ? 0 : (double) evalHits / evalProbes;
+    }
+}
@@ -0,0 +1,214 @@
+package com.chess.engine;
+
+/**
+ * Static evaluation in centipawns from White's point of view.
+ *
+ * Each piece is worth its material plus a piece-square bonus, with separate tables for the middlegame and the
+ * endgame. {@link Position} keeps the per-color sums up to date as pieces move, so evaluating a leaf is a blend
+ * of four integers weighted by how much non-pawn material is left ({@link #MAX_PHASE} = full board).
+ *
+ * Pawn structure (passed, doubled and isolated pawns) is scored on top. It depends on the pawns alone, so the
+ * search looks it up by {@link Position#pawnHash()} in an {@link EvalCache} instead of recomputing it per leaf.
+ */
+public final class Evaluator {
+
+    // Piece values: P=100, N=320, B=330, R=500, Q=900; the king is only priced for exchange evaluation
+    static final int[] PIECE_VALUES = { 100, 320, 330, 500, 900, 20000 };
+    private static final int[] ENDGAME_VALUES = { 120, 300, 330, 520, 940, 0 };
+
+    // Phase weight of each piece type; the starting position adds up to MAX_PHASE
+    static final int[] PHASE_WEIGHTS = { 0, 1, 1, 2, 4, 0 };
+    public static final int MAX_PHASE = 24;
+
+    // Pawn structure terms, middlegame and endgame; passed pawns by rank counted from their own side
+    private static final int[] PASSED_MG = { 0, 0, 5, 10, 20, 35, 55, 0 };
+    private static final int[] PASSED_EG = { 0, 10, 15, 25, 45, 75, 120, 0 };
+    private static final int DOUBLED_MG = 10;
+    private static final int DOUBLED_EG = 20;
+    private static final int ISOLATED_MG = 10;
+    private static final int ISOLATED_EG = 15;
+
+    // Squares ahead of a pawn on its own column, and on its own and the adjacent columns
+    private static final long[][] FRONT_SPAN = new long[2][64];
+    private static final long[][] PASSED_SPAN = new long[2][64];
+    private static final long[] ADJACENT_COLUMNS = new long[8];
+
+    // Piece-square bonuses from White's side, written rank 8 first so they read like a diagram
+    private static final int[] PAWN_MG = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0 };
+    private static final int[] PAWN_EG = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0 };
+    private static final int[] KNIGHT_PST = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50 };
+    private static final int[] BISHOP_PST = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20 };
+    private static final int[] ROOK_PST = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0 };
+    private static final int[] QUEEN_PST = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20 };
+    private static final int[] KING_MG = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20 };
+    private static final int[] KING_EG = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50 };
+
+    // Material plus placement for every piece code and square, ready for Position to sum incrementally
+    static final int[][] MIDDLEGAME = new int[12][64];
+    static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        int[][] middlegame = { PAWN_MG, KNIGHT_PST, BISHOP_PST, ROOK_PST, QUEEN_PST, KING_MG };
+        int[][] endgame = { PAWN_EG, KNIGHT_PST, BISHOP_PST, ROOK_PST, QUEEN_PST, KING_EG };
+        for (int type = Position.PAWN; type <= Position.KING; type++) {
+            int material = type == Position.KING ? 0 : PIECE_VALUES[type];
+            for (int sq = 0; sq < 64; sq++) {
+                // Tables are drawn rank 8 first: flipping the row maps a White square onto them, Black reads as-is
+                int white = Position.piece(Position.WHITE, type);
+                int black = Position.piece(Position.BLACK, type);
+                MIDDLEGAME[white][sq] = material + middlegame[type][sq ^ 56];
+                MIDDLEGAME[black][sq] = material + middlegame[type][sq];
+                ENDGAME[white][sq] = ENDGAME_VALUES[type] + endgame[type][sq ^ 56];
+                ENDGAME[black][sq] = ENDGAME_VALUES[type] + endgame[type][sq];
+            }
+        }
+
+        long firstColumn = 0x0101010101010101L;
+        for (int column = 0; column < 8; column++) {
+            if (column > 0)
+                ADJACENT_COLUMNS[column] |= firstColumn << (column - 1);
+            if (column < 7)
+                ADJACENT_COLUMNS[column] |= firstColumn << (column + 1);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            long column = firstColumn << Position.columnOf(sq);
+            long span = column | ADJACENT_COLUMNS[Position.columnOf(sq)];
+            // Rows above sq for White, below it for Black
+            long above = Position.rowOf(sq) == 7 ? 0 : -1L << (Position.square(Position.rowOf(sq) + 1, 0));
+            long below = (1L << Position.square(Position.rowOf(sq), 0)) - 1;
+            FRONT_SPAN[Position.WHITE][sq] = column & above;
+            FRONT_SPAN[Position.BLACK][sq] = column & below;
+            PASSED_SPAN[Position.WHITE][sq] = span & above;
+            PASSED_SPAN[Position.BLACK][sq] = span & below;
+        }
+    }
+
+    private Evaluator() {
+    }
+
+    /** Evaluates from scratch; the search goes through {@link EvalCache#evaluate} instead. */
+    public static int evaluate(Position pos) {
+        return evaluate(pos, pawnStructure(pos));
+    }
+
+    /** Evaluation given the position's {@link #pawnStructure}, which may come from a cache. */
+    static int evaluate(Position pos, int pawns) {
+        int middlegame = pos.middlegameScore(Position.WHITE) - pos.middlegameScore(Position.BLACK)
+                + middlegameOf(pawns);
+        int endgame = pos.endgameScore(Position.WHITE) - pos.endgameScore(Position.BLACK) + endgameOf(pawns);
+        int phase = Math.min(pos.phase(), MAX_PHASE); // Extra queens from promotion do not push past a full board
+        return (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+
+    /**
+     * Passed, doubled and isolated pawn terms from White's point of view, packed by {@link #score}. Only the
+     * pawns are looked at, so the result can be cached under {@link Position#pawnHash()}.
+     */
+    static int pawnStructure(Position pos) {
+        int middlegame = 0;
+        int endgame = 0;
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            int sign = color == Position.WHITE ? 1 : -1;
+            long own = pos.pieces(color, Position.PAWN);
+            long enemy = pos.pieces(color ^ 1, Position.PAWN);
+            for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+                int sq = Long.numberOfTrailingZeros(pawns);
+                if ((own & ADJACENT_COLUMNS[Position.columnOf(sq)]) == 0) {
+                    middlegame -= sign * ISOLATED_MG;
+                    endgame -= sign * ISOLATED_EG;
+                }
+                if ((own & FRONT_SPAN[color][sq]) != 0) {
+                    // Every pawn with a friendly one in front is a doubled one; only the front pawn can be passed
+                    middlegame -= sign * DOUBLED_MG;
+                    endgame -= sign * DOUBLED_EG;
+                } else if ((enemy & PASSED_SPAN[color][sq]) == 0) {
+                    int rank = color == Position.WHITE ? Position.rowOf(sq) : 7 - Position.rowOf(sq);
+                    middlegame += sign * PASSED_MG[rank];
+                    endgame += sign * PASSED_EG[rank];
+                }
+            }
+        }
+        return score(middlegame, endgame);
+    }
+
+    // A middlegame and an endgame value in one int, endgame in the upper half; sums of packed scores stay packed
+    static int score(int middlegame, int endgame) {
+        return (endgame << 16) + middlegame;
+    }
+
+    static int middlegameOf(int score) {
+        return (short) score;
+    }
+
+    static int endgameOf(int score) {
+        return (short) ((score + 0x8000) >> 16);
+    }
+
+    public static int pieceValue(int type) {
+        return PIECE_VALUES[type];
+    }
+}
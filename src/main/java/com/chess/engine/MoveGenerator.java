@@ -0,0 +1,210 @@
+package com.chess.engine;
+
+import static com.chess.engine.Position.*;
+
+/**
+ * Table-driven move generator. Moves are written as packed ints (see {@link Moves}) into a caller-owned
+ * buffer so a search can reuse one array per ply. The generator is stateless, but the legality filter
+ * briefly plays moves on the position it is given, so that position must not be shared during the call.
+ */
+public final class MoveGenerator {
+
+    /** Upper bound on the number of moves in any legal chess position. */
+    public static final int MAX_MOVES = 256;
+
+    private static final long RANK_3 = 0xFFL << 16;
+    private static final long RANK_6 = 0xFFL << 40;
+    private static final long PROMOTION_RANKS = 0xFFL | (0xFFL << 56);
+
+    /**
+     * Writes every pseudo-legal move (own king may be left in check) starting at {@code offset}.
+     *
+     * @return the index one past the last move written
+     */
+    public int generatePseudoLegal(Position pos, int[] moves, int offset) {
+        return generate(pos, moves, offset, false);
+    }
+
+    /**
+     * Writes the pseudo-legal captures (en passant included) and queen promotions, the moves a quiescence
+     * search looks at.
+     *
+     * @return the index one past the last move written
+     */
+    public int generateCaptures(Position pos, int[] moves, int offset) {
+        return generate(pos, moves, offset, true);
+    }
+
+    private int generate(Position pos, int[] moves, int offset, boolean tacticalOnly) {
+        int us = pos.sideToMove();
+        int them = us ^ 1;
+        long own = pos.occupancy(us);
+        long enemy = pos.occupancy(them);
+        long occupied = own | enemy;
+        // Non-pawn pieces may land on any square not held by a friend, or only on enemies when tactical
+        long targets = tacticalOnly ? enemy : ~own;
+        int n = offset;
+
+        n = generatePawnMoves(pos, us, enemy, occupied, moves, n, tacticalOnly);
+
+        long knights = pos.pieces(us, KNIGHT);
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            n = addTargets(from, Attacks.KNIGHT[from] & targets, enemy, moves, n);
+        }
+        long diagonal = pos.pieces(us, BISHOP) | pos.pieces(us, QUEEN);
+        while (diagonal != 0) {
+            int from = Long.numberOfTrailingZeros(diagonal);
+            diagonal &= diagonal - 1;
+            n = addTargets(from, Attacks.bishop(from, occupied) & targets, enemy, moves, n);
+        }
+        long straight = pos.pieces(us, ROOK) | pos.pieces(us, QUEEN);
+        while (straight != 0) {
+            int from = Long.numberOfTrailingZeros(straight);
+            straight &= straight - 1;
+            n = addTargets(from, Attacks.rook(from, occupied) & targets, enemy, moves, n);
+        }
+        long king = pos.pieces(us, KING);
+        if (king != 0) {
+            int from = Long.numberOfTrailingZeros(king);
+            n = addTargets(from, Attacks.KING[from] & targets, enemy, moves, n);
+            if (!tacticalOnly)
+                n = generateCastling(pos, us, from, occupied, moves, n);
+        }
+        return n;
+    }
+
+    /**
+     * Writes only the legal moves starting at {@code offset}.
+     *
+     * @return the index one past the last move written
+     */
+    public int generateLegal(Position pos, int[] moves, int offset) {
+        int end = generatePseudoLegal(pos, moves, offset);
+        int n = offset;
+        for (int i = offset; i < end; i++) {
+            if (isLegal(pos, moves[i]))
+                moves[n++] = moves[i];
+        }
+        return n;
+    }
+
+    /**
+     * Whether the side to move has any legal move, for mate and stalemate checks. The pseudo-legal moves are
+     * written to {@code moves} from {@code offset}, so the caller's buffer is reused, and the scan stops at the
+     * first legal one.
+     */
+    public boolean hasLegalMove(Position pos, int[] moves, int offset) {
+        int end = generatePseudoLegal(pos, moves, offset);
+        for (int i = offset; i < end; i++) {
+            if (isLegal(pos, moves[i]))
+                return true;
+        }
+        return false;
+    }
+
+    /** True when a pseudo-legal move does not leave the mover's king attacked. */
+    public boolean isLegal(Position pos, int move) {
+        int us = pos.sideToMove();
+        pos.makeMove(move);
+        boolean legal = !Attacks.isInCheck(pos, us);
+        pos.unmakeMove(move);
+        return legal;
+    }
+
+    private int generatePawnMoves(Position pos, int us, long enemy, long occupied, int[] moves, int n,
+            boolean tacticalOnly) {
+        long pawns = pos.pieces(us, PAWN);
+        long empty = ~occupied;
+        int forward = us == WHITE ? 8 : -8;
+
+        long single = us == WHITE ? (pawns << 8) & empty : (pawns >>> 8) & empty;
+        long dbl = us == WHITE ? ((single & RANK_3) << 8) & empty : ((single & RANK_6) >>> 8) & empty;
+        if (tacticalOnly) {
+            single &= PROMOTION_RANKS;
+            dbl = 0;
+        }
+
+        while (single != 0) {
+            int to = Long.numberOfTrailingZeros(single);
+            single &= single - 1;
+            int from = to - forward;
+            if (tacticalOnly)
+                moves[n++] = Moves.promotion(from, to, QUEEN, false);
+            else if (((1L << to) & PROMOTION_RANKS) != 0)
+                n = addPromotions(from, to, false, moves, n);
+            else
+                moves[n++] = Moves.encode(from, to, Moves.QUIET);
+        }
+        while (dbl != 0) {
+            int to = Long.numberOfTrailingZeros(dbl);
+            dbl &= dbl - 1;
+            moves[n++] = Moves.encode(to - 2 * forward, to, Moves.DOUBLE_PUSH);
+        }
+
+        int ep = pos.enPassantSquare();
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long attacks = Attacks.PAWN[us][from];
+            long captures = attacks & enemy;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if (((1L << to) & PROMOTION_RANKS) != 0)
+                    n = addPromotions(from, to, true, moves, n);
+                else
+                    moves[n++] = Moves.encode(from, to, Moves.CAPTURE);
+            }
+            if (ep != NO_SQUARE && (attacks & (1L << ep)) != 0)
+                moves[n++] = Moves.encode(from, ep, Moves.EN_PASSANT);
+        }
+        return n;
+    }
+
+    private int generateCastling(Position pos, int us, int kingSq, long occupied, int[] moves, int n) {
+        int rights = pos.castlingRights();
+        int kingside = us == WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        int queenside = us == WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        if ((rights & (kingside | queenside)) == 0)
+            return n;
+
+        int row = us == WHITE ? 0 : 7;
+        if (kingSq != square(row, 4))
+            return n;
+        int them = us ^ 1;
+        if (Attacks.isSquareAttacked(pos, kingSq, them))
+            return n; // Cannot castle out of check
+
+        long kingsideGap = (1L << square(row, 5)) | (1L << square(row, 6));
+        if ((rights & kingside) != 0 && (occupied & kingsideGap) == 0
+                && !Attacks.isSquareAttacked(pos, square(row, 5), them)
+                && !Attacks.isSquareAttacked(pos, square(row, 6), them))
+            moves[n++] = Moves.encode(kingSq, square(row, 6), Moves.KING_CASTLE);
+
+        long queensideGap = (1L << square(row, 1)) | (1L << square(row, 2)) | (1L << square(row, 3));
+        if ((rights & queenside) != 0 && (occupied & queensideGap) == 0
+                && !Attacks.isSquareAttacked(pos, square(row, 3), them)
+                && !Attacks.isSquareAttacked(pos, square(row, 2), them))
+            moves[n++] = Moves.encode(kingSq, square(row, 2), Moves.QUEEN_CASTLE);
+        return n;
+    }
+
+    private static int addTargets(int from, long targets, long enemy, int[] moves, int n) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[n++] = Moves.encode(from, to, (enemy & (1L << to)) != 0 ? Moves.CAPTURE : Moves.QUIET);
+        }
+        return n;
+    }
+
+    private static int addPromotions(int from, int to, boolean capture, int[] moves, int n) {
+        moves[n++] = Moves.promotion(from, to, QUEEN, capture);
+        moves[n++] = Moves.promotion(from, to, KNIGHT, capture);
+        moves[n++] = Moves.promotion(from, to, ROOK, capture);
+        moves[n++] = Moves.promotion(from, to, BISHOP, capture);
+        return n;
+    }
+}
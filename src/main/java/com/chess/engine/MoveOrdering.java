@@ -0,0 +1,160 @@
+package com.chess.engine;
+
+/**
+ * Move ordering for one {@link Searcher}. Moves are scored into a parallel int buffer and picked best-first
+ * with {@link #pickNext}, so a node that cuts off early never pays for sorting the rest of its list.
+ *
+ * Order: previous principal variation move, hash move, captures that do not lose material (MVV-LVA), the two
+ * killer moves of the ply, the countermove to the opponent's last move, remaining quiet moves by butterfly
+ * history, and finally captures that lose material by static exchange.
+ */
+final class MoveOrdering {
+
+    private static final int PV_MOVE = 1 << 30;
+    private static final int HASH_MOVE = 1 << 29;
+    private static final int GOOD_CAPTURE = 1 << 28;
+    private static final int FIRST_KILLER = 1 << 27;
+    private static final int SECOND_KILLER = FIRST_KILLER - 1;
+    private static final int COUNTERMOVE = 1 << 26;
+    private static final int BAD_CAPTURE = -(1 << 26);
+    // History scores saturate here, well inside the gap between quiet moves and the buckets around them
+    private static final int HISTORY_MAX = 1 << 14;
+
+    private final int[][] killers = new int[Searcher.MAX_PLY + 1][2];
+    // Reply that refuted a move, indexed by the piece that moved and its target square
+    private final int[][] countermoves = new int[12][64];
+    // Butterfly history: how often a quiet from-to move caused a cutoff for each side
+    private final int[][] history = new int[2][64 * 64];
+    private final StaticExchange exchange = new StaticExchange();
+
+    /** Forgets everything learned, as in a new instance. */
+    void clear() {
+        for (int[] table : history)
+            java.util.Arrays.fill(table, 0);
+        newSearch();
+    }
+
+    /** Forgets killers and countermoves and halves the history, ready for a new search. */
+    void newSearch() {
+        for (int[] slots : killers) {
+            slots[0] = Moves.NONE;
+            slots[1] = Moves.NONE;
+        }
+        for (int[] replies : countermoves)
+            java.util.Arrays.fill(replies, Moves.NONE);
+        for (int[] table : history) {
+            for (int i = 0; i < table.length; i++)
+                table[i] /= 2;
+        }
+    }
+
+    /**
+     * Scores {@code count} moves for the position they were generated in.
+     *
+     * @param previousMove the move that led to this position, {@link Moves#NONE} at the root
+     */
+    void score(Position pos, int[] moves, int[] scores, int count, int ply, int hashMove, int pvMove,
+            int previousMove) {
+        int us = pos.sideToMove();
+        int counter = countermove(pos, previousMove);
+        int[] killersHere = killers[ply];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int score;
+            if (move == pvMove)
+                score = PV_MOVE;
+            else if (move == hashMove)
+                score = HASH_MOVE;
+            else if (Moves.isCapture(move) || Moves.isPromotion(move))
+                score = (exchange.evaluate(pos, move) < 0 ? BAD_CAPTURE : GOOD_CAPTURE) + mvvLva(pos, move);
+            else if (move == killersHere[0])
+                score = FIRST_KILLER;
+            else if (move == killersHere[1])
+                score = SECOND_KILLER;
+            else if (move == counter)
+                score = COUNTERMOVE;
+            else
+                score = history[us][butterfly(move)];
+            scores[i] = score;
+        }
+    }
+
+    /** Scores captures for the quiescence search, where only MVV-LVA matters. */
+    void scoreCaptures(Position pos, int[] moves, int[] scores, int count) {
+        for (int i = 0; i < count; i++)
+            scores[i] = mvvLva(pos, moves[i]);
+    }
+
+    /**
+     * Swaps the best-scored move among {@code index..count-1} into {@code index} and returns it. Calling this
+     * for every index in turn yields the moves in order.
+     */
+    static int pickNext(int[] moves, int[] scores, int index, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best])
+                best = i;
+        }
+        int move = moves[best];
+        if (best != index) {
+            moves[best] = moves[index];
+            moves[index] = move;
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return move;
+    }
+
+    /**
+     * Records a quiet move that caused a beta cutoff: it becomes a killer and the countermove, gains history,
+     * and the quiet moves tried before it lose history.
+     */
+    void updateQuietCutoff(Position pos, int move, int ply, int depth, int previousMove, int[] triedQuiets,
+            int triedCount) {
+        int[] killersHere = killers[ply];
+        if (killersHere[0] != move) {
+            killersHere[1] = killersHere[0];
+            killersHere[0] = move;
+        }
+        if (previousMove != Moves.NONE)
+            countermoves[pos.pieceAt(Moves.to(previousMove))][Moves.to(previousMove)] = move;
+
+        int[] table = history[pos.sideToMove()];
+        int bonus = Math.min(depth * depth, HISTORY_MAX);
+        addHistory(table, move, bonus);
+        for (int i = 0; i < triedCount; i++)
+            addHistory(table, triedQuiets[i], -bonus);
+    }
+
+    // Scales updates down as an entry approaches the cap, so scores stay bounded without hard clamping
+    private static void addHistory(int[] table, int move, int bonus) {
+        int index = butterfly(move);
+        table[index] += bonus - table[index] * Math.abs(bonus) / HISTORY_MAX;
+    }
+
+    private int countermove(Position pos, int previousMove) {
+        if (previousMove == Moves.NONE)
+            return Moves.NONE;
+        int to = Moves.to(previousMove);
+        return countermoves[pos.pieceAt(to)][to];
+    }
+
+    private static int butterfly(int move) {
+        return move & 0xFFF; // from and to squares
+    }
+
+    // Most valuable victim first, cheapest attacker among equals
+    private static int mvvLva(Position pos, int move) {
+        int victim;
+        if (Moves.flags(move) == Moves.EN_PASSANT)
+            victim = Position.PAWN;
+        else if (Moves.isCapture(move))
+            victim = Position.typeOf(pos.pieceAt(Moves.to(move)));
+        else
+            victim = -1; // Quiet promotion: ranked by the promoted piece alone
+        int attacker = Position.typeOf(pos.pieceAt(Moves.from(move)));
+        int promotion = Moves.isPromotion(move) ? Moves.promotionType(move) * 8 : 0;
+        return (victim + 1) * 8 - attacker + promotion;
+    }
+}
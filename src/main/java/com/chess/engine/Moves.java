@@ -0,0 +1,66 @@
+package com.chess.engine;
+
+/**
+ * Search moves packed into an int: bits 0-5 from-square, 6-11 to-square, 12-15 flags.
+ * Promotion flags carry the promoted piece in their low two bits (0 = Knight ... 3 = Queen).
+ */
+public final class Moves {
+
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private Moves() {
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int promotion(int from, int to, int type, boolean capture) {
+        return encode(from, to, (capture ? PROMOTION_CAPTURE : PROMOTION) | (type - Position.KNIGHT));
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int f = flags(move);
+        return f == KING_CASTLE || f == QUEEN_CASTLE;
+    }
+
+    /** Piece type the pawn turns into; only meaningful when {@link #isPromotion(int)}. */
+    public static int promotionType(int move) {
+        return Position.KNIGHT + (flags(move) & 3);
+    }
+
+    /** UCI long algebraic notation, e.g. "e2e4" or "e7e8q". */
+    public static String toUci(int move) {
+        String uci = Position.squareName(from(move)) + Position.squareName(to(move));
+        return isPromotion(move) ? uci + "nbrq".charAt(flags(move) & 3) : uci;
+    }
+}
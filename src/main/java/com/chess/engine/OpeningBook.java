@@ -0,0 +1,125 @@
+package com.chess.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGenerator;
+
+/**
+ * A Polyglot-style opening book, memory-mapped read-only: lookups read the mapped pages in place and the OS
+ * shares them between every process that opens the same file.
+ *
+ * The file is a flat array of 16-byte big-endian entries sorted by key (unsigned):
+ *
+ * <pre>
+ *  0  8  Zobrist key of the position ({@link Position#hash()})
+ *  8  2  packed move (see {@link Moves})
+ * 10  2  weight (unsigned); moves are chosen with probability proportional to it
+ * 12  4  reserved, zero
+ * </pre>
+ *
+ * Files are written by {@link BookBuilder}. The keys are this engine's own, so Polyglot books from other
+ * programs cannot be read.
+ */
+public final class OpeningBook {
+
+    static final int ENTRY_BYTES = 16;
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % ENTRY_BYTES != 0 || length > Integer.MAX_VALUE)
+                throw new IOException("Not an opening book: " + file);
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return new OpeningBook(buffer);
+        }
+    }
+
+    /** Number of entries (position and move pairs). */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Picks a book move for {@code pos} among {@code legalMoves}, weighted at random, or the heaviest when
+     * {@code random} is null. Book moves that are not in {@code legalMoves} are ignored, so a damaged file or a
+     * key collision can never produce an illegal move.
+     *
+     * @return the move, or {@link Moves#NONE} when the position is not in the book
+     */
+    public int probe(Position pos, int[] legalMoves, int count, RandomGenerator random) {
+        long key = pos.hash();
+        int first = lowerBound(key);
+        long total = 0;
+        int best = Moves.NONE;
+        int bestWeight = 0;
+        for (int i = first; i < size && keyAt(i) == key; i++) {
+            int move = moveAt(i);
+            int weight = weightAt(i);
+            if (weight == 0 || !contains(legalMoves, count, move))
+                continue;
+            if (random == null) {
+                if (weight > bestWeight) {
+                    best = move;
+                    bestWeight = weight;
+                }
+                continue;
+            }
+            // Weighted reservoir sampling: keeps each move with probability weight / total, in one pass
+            total += weight;
+            if (random.nextLong(total) < weight)
+                best = move;
+        }
+        return best;
+    }
+
+    // Absolute reads only, so one buffer serves every thread
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return entries.getShort(index * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weightAt(int index) {
+        return entries.getShort(index * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+
+    // First entry whose key is not below key
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move)
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,173 @@
+package com.chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Lazy SMP: the calling thread runs the main search while helper threads search the same root and fill the
+ * shared transposition table. The move comes from whichever thread completed the deepest iteration (the
+ * main thread on ties), and helpers are stopped as soon as the main search returns. Every thread borrows its
+ * {@link Searcher} from a {@link SearcherPool} and gives it back when the search returns.
+ *
+ * With one thread this is exactly a single {@link Searcher}, so results are reproducible under a depth or
+ * node limit.
+ */
+public final class ParallelSearch {
+
+    private final SearcherPool searchers;
+    private final ExecutorService helperPool;
+    private final int threads;
+    private long nodes;
+    private int completedDepth;
+    private int bestScore;
+    private SearchListener listener;
+    private Tablebases tablebases;
+    // Searchers of the running search, so stop() can reach them from another thread
+    private volatile Searcher[] running;
+    private volatile boolean stopRequested;
+
+    /**
+     * @param helperPool runs the {@code threads - 1} helper searches; may be null when {@code threads == 1}
+     */
+    public ParallelSearch(TranspositionTable tt, ExecutorService helperPool, int threads) {
+        this(tt, helperPool, threads, SearchOptions.ALL);
+    }
+
+    public ParallelSearch(TranspositionTable tt, ExecutorService helperPool, int threads, SearchOptions options) {
+        this(new SearcherPool(tt, options), helperPool, threads);
+    }
+
+    /** A search whose threads borrow their searchers from {@code searchers} and give them back when it ends. */
+    public ParallelSearch(SearcherPool searchers, ExecutorService helperPool, int threads) {
+        this.searchers = searchers;
+        this.helperPool = helperPool;
+        this.threads = helperPool == null ? 1 : Math.max(1, threads);
+    }
+
+    /** Reports the main thread's completed iterations; null for none. */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /** Endgame tables for every thread of the search; null for none. */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * Stops the search as soon as possible, including one that has not started yet; safe from any thread. The
+     * best move found so far is still returned.
+     */
+    public void stop() {
+        stopRequested = true;
+        Searcher[] searchers = running;
+        if (searchers != null) {
+            for (Searcher s : searchers)
+                s.stop();
+        }
+    }
+
+    public int search(Position root, int[] rootMoves, int count, SearchLimits limits) {
+        Searcher main = searchers.acquire();
+        searchers.newSearch(main);
+        main.setListener(listener);
+        main.setTablebases(tablebases);
+        if (threads == 1 || count <= 1) {
+            try {
+                start(main);
+                int move = main.search(root, rootMoves, count, limits);
+                running = null;
+                record(main, main);
+                return move;
+            } finally {
+                searchers.release(main);
+            }
+        }
+
+        Searcher[] helpers = new Searcher[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = searchers.acquire();
+            helpers[i].setTablebases(tablebases);
+        }
+        Searcher[] all = java.util.Arrays.copyOf(helpers, threads);
+        all[helpers.length] = main;
+        start(all);
+
+        List<Future<Integer>> results = new ArrayList<>(helpers.length);
+        try {
+            for (int i = 0; i < helpers.length; i++) {
+                Searcher helper = helpers[i];
+                int index = i + 1;
+                results.add(helperPool.submit(() -> helper.searchAsHelper(root, rootMoves, count, limits, index)));
+            }
+
+            int bestMove = main.search(root, rootMoves, count, limits);
+            Searcher best = main;
+            long totalNodes = main.getNodes();
+            for (Searcher helper : helpers)
+                helper.stop();
+            for (int i = 0; i < helpers.length; i++) {
+                int helperMove = await(results.get(i));
+                totalNodes += helpers[i].getNodes();
+                if (helperMove != Moves.NONE && helpers[i].getCompletedDepth() > best.getCompletedDepth()) {
+                    best = helpers[i];
+                    bestMove = helperMove;
+                }
+            }
+            running = null;
+            record(best, main);
+            nodes = totalNodes;
+            return bestMove;
+        } finally {
+            for (Searcher helper : helpers)
+                helper.stop();
+            searchers.release(main);
+            // A helper whose task is still queued or running stays out of the pool, for good
+            for (int i = 0; i < helpers.length; i++) {
+                if (i >= results.size() || results.get(i).isDone())
+                    searchers.release(helpers[i]);
+            }
+        }
+    }
+
+    // Publish before checking the flag, so a concurrent stop() reaches the searchers one way or the other
+    private void start(Searcher... searchers) {
+        running = searchers;
+        if (stopRequested) {
+            for (Searcher s : searchers)
+                s.stop();
+        }
+    }
+
+    private void record(Searcher best, Searcher main) {
+        nodes = main.getNodes();
+        completedDepth = best.getCompletedDepth();
+        bestScore = best.getBestScore();
+    }
+
+    private static int await(Future<Integer> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Moves.NONE;
+        } catch (Exception e) {
+            return Moves.NONE;
+        }
+    }
+
+    /** Nodes searched by all threads together. */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+}
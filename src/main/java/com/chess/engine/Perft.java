@@ -0,0 +1,68 @@
+package com.chess.engine;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth. The totals for well-known positions are
+ * published, so any disagreement points straight at a move generation or make/unmake bug.
+ */
+public final class Perft {
+
+    private static final int MAX_DEPTH = 16;
+
+    private final MoveGenerator generator = new MoveGenerator();
+    private final int[][] moveBuffers = new int[MAX_DEPTH][MoveGenerator.MAX_MOVES];
+
+    public long perft(Position pos, int depth) {
+        if (depth < 1)
+            return 1;
+        if (depth > MAX_DEPTH)
+            throw new IllegalArgumentException("Perft depth above " + MAX_DEPTH);
+        return count(pos, depth, 0);
+    }
+
+    /** Perft split by root move, as "e2e4: 20" lines; the usual way to narrow down a wrong total. */
+    public String divide(Position pos, int depth) {
+        StringBuilder sb = new StringBuilder();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = generator.generateLegal(pos, moves, 0);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(moves[i]);
+            long nodes = depth <= 1 ? 1 : count(pos, depth - 1, 0);
+            pos.unmakeMove(moves[i]);
+            total += nodes;
+            sb.append(Moves.toUci(moves[i])).append(": ").append(nodes).append('\n');
+        }
+        return sb.append("total: ").append(total).toString();
+    }
+
+    private long count(Position pos, int depth, int ply) {
+        int[] moves = moveBuffers[ply];
+        int end = generator.generatePseudoLegal(pos, moves, 0);
+        int us = pos.sideToMove();
+        long nodes = 0;
+        for (int i = 0; i < end; i++) {
+            int move = moves[i];
+            pos.makeMove(move);
+            if (!Attacks.isInCheck(pos, us))
+                nodes += depth == 1 ? 1 : count(pos, depth - 1, ply + 1);
+            pos.unmakeMove(move);
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: Perft <depth> <fen>");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        String fen = String.join(" ", java.util.Arrays.copyOfRange(args, 1, args.length));
+        Position pos = Position.fromFen(fen);
+        long start = System.nanoTime();
+        String divide = new Perft().divide(pos, depth);
+        long nanos = Math.max(1, System.nanoTime() - start); // The search alone, not the printing
+        System.out.println(divide);
+        long total = Long.parseLong(divide.substring(divide.lastIndexOf(' ') + 1));
+        System.out.printf(java.util.Locale.ROOT, "time: %.3f ms, %d nps%n", nanos / 1e6, (long) (total * 1e9 / nanos));
+    }
+}
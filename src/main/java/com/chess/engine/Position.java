@@ -0,0 +1,640 @@
+package com.chess.engine;
+
+import com.chess.model.*;
+
+/**
+ * Packed chess position used by the search.
+ *
+ * Squares are numbered {@code x * 8 + y}, where {@code x} is the row (0 = White's back rank) and {@code y} is the
+ * column, so the indices line up with {@code Board.getBox(x, y)}. Each piece code ({@code color * 6 + type}) owns one
+ * 64-bit occupancy mask, and a 64-entry mailbox answers "what stands on this square" without scanning the masks.
+ */
+public final class Position {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int EMPTY = -1;
+    public static final int NO_SQUARE = -1;
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    private final long[] bitboards = new long[12];
+    private final long[] occupancy = new long[2];
+    private final int[] mailbox = new int[64];
+    private final int[] kingSquare = { NO_SQUARE, NO_SQUARE };
+    private int sideToMove = WHITE;
+    private int castlingRights;
+    private int enPassantSquare = NO_SQUARE;
+    private long hash;
+    // Zobrist key of the pawns alone, for the pawn-structure cache in EvalCache
+    private long pawnHash;
+
+    // Evaluation terms kept in step with the pieces, so Evaluator never has to scan the board
+    private final int[] material = new int[2];
+    private final int[] middlegameScore = new int[2];
+    private final int[] endgameScore = new int[2];
+    private int phase;
+
+    /**
+     * Depth of the undo stack for unmakeMove. It is a ring, so only the most recent UNDO_CAPACITY moves can be
+     * taken back, which is far deeper than any search goes.
+     */
+    public static final int UNDO_CAPACITY = 256;
+    private final int[] undoCaptured = new int[UNDO_CAPACITY];
+    private final int[] undoCastling = new int[UNDO_CAPACITY];
+    private final int[] undoEnPassant = new int[UNDO_CAPACITY];
+    private final long[] undoHash = new long[UNDO_CAPACITY];
+    private int undoTop;
+
+    public Position() {
+        java.util.Arrays.fill(mailbox, EMPTY);
+    }
+
+    public static int square(int x, int y) {
+        return x * 8 + y;
+    }
+
+    public static int rowOf(int square) {
+        return square >>> 3;
+    }
+
+    public static int columnOf(int square) {
+        return square & 7;
+    }
+
+    public static int piece(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int colorOf(int piece) {
+        return piece < 6 ? WHITE : BLACK;
+    }
+
+    public static int typeOf(int piece) {
+        return piece < 6 ? piece : piece - 6;
+    }
+
+    // --- Conversion from / to the REST model ---
+
+    public static Position fromBoard(Board board, boolean whiteToMove) {
+        Position pos = new Position();
+        Spot[][] boxes = board.getBoxes();
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                Piece p = boxes[i][j].getPiece();
+                if (p != null) {
+                    pos.putPiece(square(i, j), piece(p.isWhite() ? WHITE : BLACK, typeOf(p)));
+                }
+            }
+        }
+        pos.setSideToMove(whiteToMove ? WHITE : BLACK);
+
+        // Castling rights come from the hasMoved flags the model already tracks
+        int rights = 0;
+        if (isUnmoved(boxes[0][4].getPiece(), King.class, true)) {
+            if (isUnmoved(boxes[0][7].getPiece(), Rook.class, true))
+                rights |= WHITE_KINGSIDE;
+            if (isUnmoved(boxes[0][0].getPiece(), Rook.class, true))
+                rights |= WHITE_QUEENSIDE;
+        }
+        if (isUnmoved(boxes[7][4].getPiece(), King.class, false)) {
+            if (isUnmoved(boxes[7][7].getPiece(), Rook.class, false))
+                rights |= BLACK_KINGSIDE;
+            if (isUnmoved(boxes[7][0].getPiece(), Rook.class, false))
+                rights |= BLACK_QUEENSIDE;
+        }
+        pos.setCastlingRights(rights);
+
+        // En passant is only known when the board carries its history
+        Move last = board.getLastMove();
+        if (last != null && last.getPieceMoved() instanceof Pawn
+                && last.getPieceMoved().isWhite() != whiteToMove
+                && Math.abs(last.getStart().getX() - last.getEnd().getX()) == 2) {
+            int passedX = (last.getStart().getX() + last.getEnd().getX()) / 2;
+            pos.setEnPassantSquare(pos.capturableEnPassant(square(passedX, last.getEnd().getY()), pos.sideToMove));
+        }
+        return pos;
+    }
+
+    // --- FEN ---
+
+    private static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * Parses Forsyth-Edwards Notation. Only the placement field is required; the clocks are accepted but not
+     * kept.
+     *
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static Position fromFen(String fen) {
+        if (fen == null || fen.isBlank())
+            throw new IllegalArgumentException("Empty FEN");
+        String[] fields = fen.trim().split("\\s+");
+        Position pos = new Position();
+
+        int x = 7;
+        int y = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                if (y != 8)
+                    throw new IllegalArgumentException("Bad FEN rank: " + fen);
+                x--;
+                y = 0;
+            } else if (c >= '1' && c <= '8') {
+                y += c - '0';
+            } else {
+                int code = PIECE_LETTERS.indexOf(c);
+                if (code < 0 || x < 0 || y > 7)
+                    throw new IllegalArgumentException("Bad FEN placement: " + fen);
+                pos.putPiece(square(x, y++), code);
+            }
+            if (y > 8)
+                throw new IllegalArgumentException("Bad FEN rank: " + fen);
+        }
+        if (x != 0 || y != 8)
+            throw new IllegalArgumentException("Bad FEN placement: " + fen);
+        if (Long.bitCount(pos.pieces(WHITE, KING)) != 1 || Long.bitCount(pos.pieces(BLACK, KING)) != 1)
+            throw new IllegalArgumentException("FEN must have one king per side: " + fen);
+
+        if (fields.length > 1 && !fields[1].equals("w") && !fields[1].equals("b"))
+            throw new IllegalArgumentException("Bad FEN side to move: " + fen);
+        pos.setSideToMove(fields.length > 1 && fields[1].equals("b") ? BLACK : WHITE);
+
+        int rights = 0;
+        if (fields.length > 2) {
+            for (char c : fields[2].toCharArray()) {
+                if (c == 'K')
+                    rights |= WHITE_KINGSIDE;
+                else if (c == 'Q')
+                    rights |= WHITE_QUEENSIDE;
+                else if (c == 'k')
+                    rights |= BLACK_KINGSIDE;
+                else if (c == 'q')
+                    rights |= BLACK_QUEENSIDE;
+                else if (c != '-')
+                    throw new IllegalArgumentException("Bad FEN castling rights: " + fen);
+            }
+        }
+        // Drop rights whose king or rook is not on its home square
+        if (pos.mailbox[square(0, 4)] != piece(WHITE, KING))
+            rights &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        if (pos.mailbox[square(0, 7)] != piece(WHITE, ROOK))
+            rights &= ~WHITE_KINGSIDE;
+        if (pos.mailbox[square(0, 0)] != piece(WHITE, ROOK))
+            rights &= ~WHITE_QUEENSIDE;
+        if (pos.mailbox[square(7, 4)] != piece(BLACK, KING))
+            rights &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        if (pos.mailbox[square(7, 7)] != piece(BLACK, ROOK))
+            rights &= ~BLACK_KINGSIDE;
+        if (pos.mailbox[square(7, 0)] != piece(BLACK, ROOK))
+            rights &= ~BLACK_QUEENSIDE;
+        pos.setCastlingRights(rights);
+
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            int ep = parseSquare(fields[3]);
+            int them = pos.sideToMove ^ 1;
+            int pushedPawn = them == WHITE ? ep + 8 : ep - 8;
+            if (rowOf(ep) == (them == WHITE ? 2 : 5) && pos.mailbox[pushedPawn] == piece(them, PAWN))
+                pos.setEnPassantSquare(pos.capturableEnPassant(ep, pos.sideToMove));
+        }
+        return pos;
+    }
+
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(90);
+        for (int x = 7; x >= 0; x--) {
+            int empty = 0;
+            for (int y = 0; y < 8; y++) {
+                int code = mailbox[square(x, y)];
+                if (code == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(PIECE_LETTERS.charAt(code));
+            }
+            if (empty > 0)
+                sb.append(empty);
+            if (x > 0)
+                sb.append('/');
+        }
+        sb.append(sideToMove == WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            sb.append('-');
+        } else {
+            if ((castlingRights & WHITE_KINGSIDE) != 0)
+                sb.append('K');
+            if ((castlingRights & WHITE_QUEENSIDE) != 0)
+                sb.append('Q');
+            if ((castlingRights & BLACK_KINGSIDE) != 0)
+                sb.append('k');
+            if ((castlingRights & BLACK_QUEENSIDE) != 0)
+                sb.append('q');
+        }
+        sb.append(' ').append(enPassantSquare == NO_SQUARE ? "-" : squareName(enPassantSquare));
+        sb.append(" 0 1");
+        return sb.toString();
+    }
+
+    /** Algebraic name of a square, e.g. 12 is "e2". */
+    public static String squareName(int square) {
+        return "" + (char) ('a' + columnOf(square)) + (char) ('1' + rowOf(square));
+    }
+
+    public static int parseSquare(String name) {
+        if (name.length() != 2 || name.charAt(0) < 'a' || name.charAt(0) > 'h' || name.charAt(1) < '1'
+                || name.charAt(1) > '8')
+            throw new IllegalArgumentException("Bad square: " + name);
+        return square(name.charAt(1) - '1', name.charAt(0) - 'a');
+    }
+
+    public Spot[][] toBoxes() {
+        Spot[][] boxes = new Spot[8][8];
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                int code = mailbox[square(i, j)];
+                boxes[i][j] = new Spot(i, j, code == EMPTY ? null : toModelPiece(code, i, j));
+            }
+        }
+        return boxes;
+    }
+
+    public Board toBoard() {
+        Board board = new Board();
+        toBoard(board);
+        return board;
+    }
+
+    /**
+     * Sets up {@code board} as this position. Castling rights become the hasMoved flags of kings and rooks, and an
+     * en-passant square becomes the double push that allowed it, the last move in the board's history, which is
+     * where {@link #fromBoard} reads both back.
+     */
+    public void toBoard(Board board) {
+        Spot[][] boxes = toBoxes();
+        board.setBoxes(boxes);
+        board.getHistory().clear();
+        if (enPassantSquare != NO_SQUARE) {
+            int forward = sideToMove == WHITE ? -8 : 8;
+            Spot from = boxes[rowOf(enPassantSquare - forward)][columnOf(enPassantSquare)];
+            Spot to = boxes[rowOf(enPassantSquare + forward)][columnOf(enPassantSquare)];
+            board.addMove(new Move(from, to, to.getPiece(), null, true));
+        }
+    }
+
+    private static boolean isUnmoved(Piece p, Class<? extends Piece> type, boolean white) {
+        return type.isInstance(p) && p.isWhite() == white && !p.hasMoved();
+    }
+
+    static int typeOf(Piece p) {
+        if (p instanceof Pawn)
+            return PAWN;
+        if (p instanceof Knight)
+            return KNIGHT;
+        if (p instanceof Bishop)
+            return BISHOP;
+        if (p instanceof Rook)
+            return ROOK;
+        if (p instanceof Queen)
+            return QUEEN;
+        return KING;
+    }
+
+    private Piece toModelPiece(int code, int x, int y) {
+        boolean white = colorOf(code) == WHITE;
+        Piece p;
+        switch (typeOf(code)) {
+            case PAWN:
+                p = new Pawn(white);
+                p.setMoved(x != (white ? 1 : 6));
+                return p;
+            case KNIGHT:
+                p = new Knight(white);
+                break;
+            case BISHOP:
+                p = new Bishop(white);
+                break;
+            case ROOK:
+                p = new Rook(white);
+                int homeRow = white ? 0 : 7;
+                int right = y == 7 ? (white ? WHITE_KINGSIDE : BLACK_KINGSIDE)
+                        : y == 0 ? (white ? WHITE_QUEENSIDE : BLACK_QUEENSIDE) : 0;
+                p.setMoved(x != homeRow || (castlingRights & right) == 0);
+                return p;
+            case QUEEN:
+                p = new Queen(white);
+                break;
+            default:
+                p = new King(white);
+                int rights = white ? (WHITE_KINGSIDE | WHITE_QUEENSIDE) : (BLACK_KINGSIDE | BLACK_QUEENSIDE);
+                p.setMoved((castlingRights & rights) == 0);
+                return p;
+        }
+        return p;
+    }
+
+    // --- Accessors ---
+
+    public int pieceAt(int square) {
+        return mailbox[square];
+    }
+
+    public long pieces(int piece) {
+        return bitboards[piece];
+    }
+
+    public long pieces(int color, int type) {
+        return bitboards[color * 6 + type];
+    }
+
+    public long occupancy(int color) {
+        return occupancy[color];
+    }
+
+    public long occupied() {
+        return occupancy[WHITE] | occupancy[BLACK];
+    }
+
+    /** Square of the given side's king, kept current by every move; {@link #NO_SQUARE} if it has none. */
+    public int kingSquare(int color) {
+        return kingSquare[color];
+    }
+
+    public boolean isInCheck() {
+        return Attacks.isInCheck(this, sideToMove);
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public boolean isWhiteToMove() {
+        return sideToMove == WHITE;
+    }
+
+    public int castlingRights() {
+        return castlingRights;
+    }
+
+    public int enPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /** Zobrist key, updated incrementally by every mutation. */
+    public long hash() {
+        return hash;
+    }
+
+    /** Zobrist key of the pawns alone; it changes only when a pawn moves, is captured or promotes. */
+    public long pawnHash() {
+        return pawnHash;
+    }
+
+    /** Material of {@code color} in centipawns, king excluded. */
+    public int material(int color) {
+        return material[color];
+    }
+
+    /** Material plus middlegame piece-square bonuses of {@code color}. */
+    public int middlegameScore(int color) {
+        return middlegameScore[color];
+    }
+
+    /** Material plus endgame piece-square bonuses of {@code color}. */
+    public int endgameScore(int color) {
+        return endgameScore[color];
+    }
+
+    /** Game phase from non-pawn material: {@link Evaluator#MAX_PHASE} at the start, 0 with pawns and kings only. */
+    public int phase() {
+        return phase;
+    }
+
+    public void copyFrom(Position other) {
+        System.arraycopy(other.bitboards, 0, bitboards, 0, bitboards.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+        System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+        kingSquare[WHITE] = other.kingSquare[WHITE];
+        kingSquare[BLACK] = other.kingSquare[BLACK];
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        hash = other.hash;
+        pawnHash = other.pawnHash;
+        System.arraycopy(other.material, 0, material, 0, 2);
+        System.arraycopy(other.middlegameScore, 0, middlegameScore, 0, 2);
+        System.arraycopy(other.endgameScore, 0, endgameScore, 0, 2);
+        phase = other.phase;
+    }
+
+    public Position copy() {
+        Position p = new Position();
+        p.copyFrom(this);
+        return p;
+    }
+
+    // --- Making moves ---
+
+    // Rights that survive a move touching each square (king and rook home squares clear theirs)
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        java.util.Arrays.fill(CASTLING_MASK, 0xF);
+        CASTLING_MASK[square(0, 4)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[square(0, 7)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[square(0, 0)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[square(7, 4)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[square(7, 7)] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[square(7, 0)] &= ~BLACK_QUEENSIDE;
+    }
+
+    /**
+     * Plays a pseudo-legal move in place, pushing what {@link #unmakeMove(int)} needs to restore it.
+     */
+    public void makeMove(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int flags = Moves.flags(move);
+        int moving = mailbox[from];
+        int us = sideToMove;
+
+        int slot = undoTop++ & (UNDO_CAPACITY - 1);
+        undoCastling[slot] = castlingRights;
+        undoEnPassant[slot] = enPassantSquare;
+        undoHash[slot] = hash;
+
+        if (flags == Moves.EN_PASSANT) {
+            int victim = square(rowOf(from), columnOf(to));
+            undoCaptured[slot] = mailbox[victim];
+            removePiece(victim);
+        } else {
+            undoCaptured[slot] = mailbox[to];
+            if (mailbox[to] != EMPTY)
+                removePiece(to);
+        }
+        if (Moves.isPromotion(move)) {
+            removePiece(from);
+            putPiece(to, piece(us, Moves.promotionType(move)));
+        } else {
+            shiftPiece(from, to);
+        }
+
+        if (flags == Moves.KING_CASTLE) {
+            int row = rowOf(from);
+            shiftPiece(square(row, 7), square(row, 5));
+        } else if (flags == Moves.QUEEN_CASTLE) {
+            int row = rowOf(from);
+            shiftPiece(square(row, 0), square(row, 3));
+        }
+
+        setEnPassantSquare(flags == Moves.DOUBLE_PUSH ? capturableEnPassant((from + to) >>> 1, us ^ 1) : NO_SQUARE);
+        setCastlingRights(castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to]);
+        setSideToMove(us ^ 1);
+    }
+
+    /** Takes back {@code move}, which must be the last move made on this position. */
+    public void unmakeMove(int move) {
+        int slot = --undoTop & (UNDO_CAPACITY - 1);
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int flags = Moves.flags(move);
+        int us = sideToMove ^ 1;
+
+        if (flags == Moves.KING_CASTLE) {
+            int row = rowOf(from);
+            shiftPiece(square(row, 5), square(row, 7));
+        } else if (flags == Moves.QUEEN_CASTLE) {
+            int row = rowOf(from);
+            shiftPiece(square(row, 3), square(row, 0));
+        }
+
+        if (Moves.isPromotion(move)) {
+            removePiece(to);
+            putPiece(from, piece(us, PAWN));
+        } else {
+            shiftPiece(to, from);
+        }
+
+        int captured = undoCaptured[slot];
+        if (captured != EMPTY)
+            putPiece(flags == Moves.EN_PASSANT ? square(rowOf(from), columnOf(to)) : to, captured);
+
+        sideToMove = us;
+        castlingRights = undoCastling[slot];
+        enPassantSquare = undoEnPassant[slot];
+        hash = undoHash[slot];
+    }
+
+    /** Passes the turn without moving, for null-move pruning. Must not be called while in check. */
+    public void makeNullMove() {
+        int slot = undoTop++ & (UNDO_CAPACITY - 1);
+        undoCaptured[slot] = EMPTY;
+        undoCastling[slot] = castlingRights;
+        undoEnPassant[slot] = enPassantSquare;
+        undoHash[slot] = hash;
+        setEnPassantSquare(NO_SQUARE);
+        setSideToMove(sideToMove ^ 1);
+    }
+
+    public void unmakeNullMove() {
+        int slot = --undoTop & (UNDO_CAPACITY - 1);
+        sideToMove ^= 1;
+        enPassantSquare = undoEnPassant[slot];
+        hash = undoHash[slot];
+    }
+
+    // Only record the square when an enemy pawn can actually capture there, so transpositions hash alike
+    private int capturableEnPassant(int passed, int capturer) {
+        return (Attacks.PAWN[capturer ^ 1][passed] & bitboards[piece(capturer, PAWN)]) != 0 ? passed : NO_SQUARE;
+    }
+
+    // --- Low level mutation ---
+
+    void putPiece(int square, int piece) {
+        long bit = 1L << square;
+        bitboards[piece] |= bit;
+        occupancy[colorOf(piece)] |= bit;
+        mailbox[square] = piece;
+        hash ^= Zobrist.PIECE_SQUARE[piece][square];
+        int color = colorOf(piece);
+        int type = typeOf(piece);
+        middlegameScore[color] += Evaluator.MIDDLEGAME[piece][square];
+        endgameScore[color] += Evaluator.ENDGAME[piece][square];
+        if (type == PAWN)
+            pawnHash ^= Zobrist.PIECE_SQUARE[piece][square];
+        if (type == KING) {
+            kingSquare[color] = square;
+        } else {
+            material[color] += Evaluator.PIECE_VALUES[type];
+            phase += Evaluator.PHASE_WEIGHTS[type];
+        }
+    }
+
+    // Moves whatever stands on from to the empty square to
+    private void shiftPiece(int from, int to) {
+        int piece = mailbox[from];
+        long fromTo = (1L << from) | (1L << to);
+        bitboards[piece] ^= fromTo;
+        occupancy[colorOf(piece)] ^= fromTo;
+        mailbox[from] = EMPTY;
+        mailbox[to] = piece;
+        hash ^= Zobrist.PIECE_SQUARE[piece][from] ^ Zobrist.PIECE_SQUARE[piece][to];
+        int color = colorOf(piece);
+        middlegameScore[color] += Evaluator.MIDDLEGAME[piece][to] - Evaluator.MIDDLEGAME[piece][from];
+        endgameScore[color] += Evaluator.ENDGAME[piece][to] - Evaluator.ENDGAME[piece][from];
+        if (typeOf(piece) == KING)
+            kingSquare[color] = to;
+        else if (typeOf(piece) == PAWN)
+            pawnHash ^= Zobrist.PIECE_SQUARE[piece][from] ^ Zobrist.PIECE_SQUARE[piece][to];
+    }
+
+    void removePiece(int square) {
+        int piece = mailbox[square];
+        long bit = 1L << square;
+        bitboards[piece] &= ~bit;
+        occupancy[colorOf(piece)] &= ~bit;
+        mailbox[square] = EMPTY;
+        hash ^= Zobrist.PIECE_SQUARE[piece][square];
+        int color = colorOf(piece);
+        int type = typeOf(piece);
+        middlegameScore[color] -= Evaluator.MIDDLEGAME[piece][square];
+        endgameScore[color] -= Evaluator.ENDGAME[piece][square];
+        if (type == PAWN)
+            pawnHash ^= Zobrist.PIECE_SQUARE[piece][square];
+        if (type != KING) {
+            material[color] -= Evaluator.PIECE_VALUES[type];
+            phase -= Evaluator.PHASE_WEIGHTS[type];
+        }
+    }
+
+    void setSideToMove(int color) {
+        if (color != sideToMove)
+            hash ^= Zobrist.SIDE_TO_MOVE;
+        this.sideToMove = color;
+    }
+
+    void setCastlingRights(int castlingRights) {
+        hash ^= Zobrist.CASTLING[this.castlingRights] ^ Zobrist.CASTLING[castlingRights];
+        this.castlingRights = castlingRights;
+    }
+
+    void setEnPassantSquare(int square) {
+        hash ^= Zobrist.enPassant(enPassantSquare) ^ Zobrist.enPassant(square);
+        this.enPassantSquare = square;
+    }
+}
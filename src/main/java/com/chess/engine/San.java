@@ -0,0 +1,162 @@
+package com.chess.engine;
+
+/**
+ * Standard algebraic notation, as found in PGN files: "e4", "Nbd7", "exd5", "O-O", "e8=Q+".
+ */
+public final class San {
+
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private San() {
+    }
+
+    /**
+     * The legal move {@code san} names in {@code pos}, or {@link Moves#NONE} if it names no legal move or more
+     * than one. Check, mate and annotation suffixes are ignored.
+     */
+    public static int parse(Position pos, String san) {
+        String s = stripSuffixes(san);
+        if (s.isEmpty())
+            return Moves.NONE;
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = new MoveGenerator().generateLegal(pos, moves, 0);
+
+        if (s.equals("O-O") || s.equals("0-0"))
+            return findFlag(moves, count, Moves.KING_CASTLE);
+        if (s.equals("O-O-O") || s.equals("0-0-0"))
+            return findFlag(moves, count, Moves.QUEEN_CASTLE);
+
+        int type = Position.PAWN;
+        int start = 0;
+        if (PIECE_LETTERS.indexOf(s.charAt(0)) > 0) {
+            type = PIECE_LETTERS.indexOf(s.charAt(0));
+            start = 1;
+        }
+
+        // Promotion: "e8=Q" or "e8Q"
+        int promotion = -1;
+        int end = s.length();
+        char last = s.charAt(end - 1);
+        if (type == Position.PAWN && PIECE_LETTERS.indexOf(last) > 0) {
+            promotion = PIECE_LETTERS.indexOf(last);
+            end--;
+            if (end > 0 && s.charAt(end - 1) == '=')
+                end--;
+        }
+        if (end - start < 2)
+            return Moves.NONE;
+
+        int to;
+        try {
+            to = Position.parseSquare(s.substring(end - 2, end));
+        } catch (IllegalArgumentException e) {
+            return Moves.NONE;
+        }
+
+        // What is left between the piece letter and the target: disambiguation and the capture mark
+        int fromColumn = -1;
+        int fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = s.charAt(i);
+            if (c >= 'a' && c <= 'h')
+                fromColumn = c - 'a';
+            else if (c >= '1' && c <= '8')
+                fromRow = c - '1';
+            else if (c != 'x' && c != ':' && c != '-')
+                return Moves.NONE;
+        }
+
+        int found = Moves.NONE;
+        for (int i = 0; i < count; i++) {
+            int m = moves[i];
+            int from = Moves.from(m);
+            if (Moves.to(m) != to || Moves.isCastle(m) || Position.typeOf(pos.pieceAt(from)) != type)
+                continue;
+            if ((fromColumn >= 0 && Position.columnOf(from) != fromColumn)
+                    || (fromRow >= 0 && Position.rowOf(from) != fromRow))
+                continue;
+            if (Moves.isPromotion(m) ? Moves.promotionType(m) != promotion : promotion >= 0)
+                continue;
+            if (found != Moves.NONE)
+                return Moves.NONE; // Ambiguous
+            found = m;
+        }
+        return found;
+    }
+
+    /**
+     * SAN of the legal move {@code move} in {@code pos}, with "+" or "#" when it gives check or mate. The move
+     * is made and taken back to find that out, so {@code pos} ends as it started.
+     */
+    public static String toSan(Position pos, int move) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        MoveGenerator generator = new MoveGenerator();
+        StringBuilder san = new StringBuilder(8);
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int type = Position.typeOf(pos.pieceAt(from));
+
+        if (Moves.flags(move) == Moves.KING_CASTLE) {
+            san.append("O-O");
+        } else if (Moves.flags(move) == Moves.QUEEN_CASTLE) {
+            san.append("O-O-O");
+        } else {
+            if (type == Position.PAWN) {
+                if (Moves.isCapture(move))
+                    san.append((char) ('a' + Position.columnOf(from)));
+            } else {
+                san.append(PIECE_LETTERS.charAt(type));
+                appendDisambiguation(san, pos, moves, generator.generateLegal(pos, moves, 0), move, type);
+            }
+            if (Moves.isCapture(move))
+                san.append('x');
+            san.append(Position.squareName(to));
+            if (Moves.isPromotion(move))
+                san.append('=').append(PIECE_LETTERS.charAt(Moves.promotionType(move)));
+        }
+
+        pos.makeMove(move);
+        if (pos.isInCheck())
+            san.append(generator.generateLegal(pos, moves, 0) == 0 ? '#' : '+');
+        pos.unmakeMove(move);
+        return san.toString();
+    }
+
+    // The file of the origin if that is enough to tell same-type pieces apart, else its rank, else both
+    private static void appendDisambiguation(StringBuilder san, Position pos, int[] moves, int count, int move,
+            int type) {
+        int from = Moves.from(move);
+        boolean ambiguous = false;
+        boolean sameColumn = false;
+        boolean sameRow = false;
+        for (int i = 0; i < count; i++) {
+            int other = Moves.from(moves[i]);
+            if (other == from || Moves.to(moves[i]) != Moves.to(move) || Position.typeOf(pos.pieceAt(other)) != type)
+                continue;
+            ambiguous = true;
+            sameColumn |= Position.columnOf(other) == Position.columnOf(from);
+            sameRow |= Position.rowOf(other) == Position.rowOf(from);
+        }
+        if (!ambiguous)
+            return;
+        if (!sameColumn || sameRow)
+            san.append((char) ('a' + Position.columnOf(from)));
+        if (sameColumn)
+            san.append((char) ('1' + Position.rowOf(from)));
+    }
+
+    private static String stripSuffixes(String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0)
+            end--;
+        return san.substring(0, end).trim();
+    }
+
+    private static int findFlag(int[] moves, int count, int flag) {
+        for (int i = 0; i < count; i++) {
+            if (Moves.flags(moves[i]) == flag)
+                return moves[i];
+        }
+        return Moves.NONE;
+    }
+}
@@ -0,0 +1,50 @@
+package com.chess.engine;
+
+/** Result of one completed iterative-deepening iteration. */
+public final class SearchInfo {
+
+    private final int depth;
+    private final int score;
+    private final int[] pv;
+    private final long nodes;
+    private final long elapsedMs;
+
+    public SearchInfo(int depth, int score, int[] pv, long nodes, long elapsedMs) {
+        this.depth = depth;
+        this.score = score;
+        this.pv = pv;
+        this.nodes = nodes;
+        this.elapsedMs = elapsedMs;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /** Centipawns from the side to move's point of view; see {@link #getMateIn()} for mate scores. */
+    public int getScore() {
+        return score;
+    }
+
+    /** Moves to mate, negative when the side to move is being mated, or 0 when the score is not a mate. */
+    public int getMateIn() {
+        return Searcher.mateIn(score);
+    }
+
+    /** Principal variation as packed moves (see {@link Moves}), best move first. */
+    public int[] getPv() {
+        return pv;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, elapsedMs);
+    }
+}
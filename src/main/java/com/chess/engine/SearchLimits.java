@@ -0,0 +1,36 @@
+package com.chess.engine;
+
+/**
+ * When an iterative-deepening search must stop. A value of {@link #NO_LIMIT} disables that limit; the depth
+ * limit is always set. The first iteration always completes so a search returns a move even on a tiny budget.
+ */
+public final class SearchLimits {
+
+    public static final long NO_LIMIT = 0;
+
+    private final int maxDepth;
+    private final long movetimeMs;
+    private final long maxNodes;
+
+    public SearchLimits(int maxDepth, long movetimeMs, long maxNodes) {
+        this.maxDepth = Math.max(1, Math.min(maxDepth, Searcher.MAX_PLY - 1));
+        this.movetimeMs = Math.max(NO_LIMIT, movetimeMs);
+        this.maxNodes = Math.max(NO_LIMIT, maxNodes);
+    }
+
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, NO_LIMIT, NO_LIMIT);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMovetimeMs() {
+        return movetimeMs;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+}
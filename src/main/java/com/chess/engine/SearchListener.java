@@ -0,0 +1,8 @@
+package com.chess.engine;
+
+/** Receives the result of every completed iteration of a {@link Searcher}, on the searching thread. */
+@FunctionalInterface
+public interface SearchListener {
+
+    void onIteration(SearchInfo info);
+}
@@ -0,0 +1,83 @@
+package com.chess.engine;
+
+import java.util.Locale;
+
+/**
+ * Which selective-search techniques a {@link Searcher} may use. Each one trades a little accuracy for a large
+ * cut in nodes, and switching them off one at a time is how their savings are measured.
+ */
+public final class SearchOptions {
+
+    public static final SearchOptions ALL = new SearchOptions(true, true, true, true);
+    public static final SearchOptions NONE = new SearchOptions(false, false, false, false);
+
+    private final boolean nullMove;
+    private final boolean lateMoveReductions;
+    private final boolean futility;
+    private final boolean reverseFutility;
+
+    public SearchOptions(boolean nullMove, boolean lateMoveReductions, boolean futility, boolean reverseFutility) {
+        this.nullMove = nullMove;
+        this.lateMoveReductions = lateMoveReductions;
+        this.futility = futility;
+        this.reverseFutility = reverseFutility;
+    }
+
+    /**
+     * Parses a comma-separated list of enabled techniques: {@code null-move}, {@code lmr}, {@code futility},
+     * {@code reverse-futility}, or the shorthands {@code all} and {@code none}.
+     *
+     * @throws IllegalArgumentException on an unknown name
+     */
+    public static SearchOptions parse(String spec) {
+        boolean nullMove = false;
+        boolean lateMoveReductions = false;
+        boolean futility = false;
+        boolean reverseFutility = false;
+        for (String name : spec.split(",")) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "all" -> {
+                    return ALL;
+                }
+                case "none", "" -> {
+                }
+                case "null-move" -> nullMove = true;
+                case "lmr" -> lateMoveReductions = true;
+                case "futility" -> futility = true;
+                case "reverse-futility" -> reverseFutility = true;
+                default -> throw new IllegalArgumentException("Unknown search option: " + name);
+            }
+        }
+        return new SearchOptions(nullMove, lateMoveReductions, futility, reverseFutility);
+    }
+
+    public boolean isNullMove() {
+        return nullMove;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    public boolean isFutility() {
+        return futility;
+    }
+
+    public boolean isReverseFutility() {
+        return reverseFutility;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (nullMove)
+            sb.append("null-move,");
+        if (lateMoveReductions)
+            sb.append("lmr,");
+        if (futility)
+            sb.append("futility,");
+        if (reverseFutility)
+            sb.append("reverse-futility,");
+        return sb.length() == 0 ? "none" : sb.substring(0, sb.length() - 1);
+    }
+}
@@ -0,0 +1,509 @@
+package com.chess.engine;
+
+/**
+ * Iterative-deepening alpha-beta (negamax) over {@link Position}. One instance owns a single position that
+ * is walked with make/unmake, plus a move buffer per ply, so a search allocates nothing once it is running.
+ * Leaves are resolved by a captures-only quiescence search so the static evaluation is never taken in the
+ * middle of an exchange. Null-move pruning, late-move reductions and futility pruning are applied as the
+ * {@link SearchOptions} allow, and positions covered by {@link Tablebases} are scored from the tables. Static
+ * evaluations go through the searcher's own {@link EvalCache}. Instances are not thread-safe, but the
+ * {@link TranspositionTable} and tablebases they probe may be shared.
+ */
+public final class Searcher {
+
+    public static final int MAX_PLY = 64;
+    public static final int MATE_SCORE = 30000;
+    // Tablebase mates can lie far beyond the search horizon, so they get room below the search's own mates
+    private static final int MATE_BOUND = MATE_SCORE - MAX_PLY - Tablebases.MAX_DTM;
+    private static final int INFINITY = 100000;
+    private static final int LIMIT_CHECK_INTERVAL = 1023;
+    // Positional slack allowed on top of a capture's material before delta pruning skips it
+    private static final int DELTA_MARGIN = 2 * Evaluator.pieceValue(Position.PAWN);
+
+    // Selective search tuning, all in plies and centipawns
+    private static final int REVERSE_FUTILITY_DEPTH = 4;
+    private static final int REVERSE_FUTILITY_MARGIN = 100;
+    private static final int FUTILITY_DEPTH = 3;
+    private static final int FUTILITY_MARGIN = 150;
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3;
+    // Reduction for a given depth and move number, growing with the logarithm of both
+    private static final int[][] LMR_REDUCTIONS = new int[MAX_PLY + 1][64];
+
+    static {
+        for (int depth = 1; depth <= MAX_PLY; depth++) {
+            for (int moveNumber = 1; moveNumber < 64; moveNumber++)
+                LMR_REDUCTIONS[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+        }
+    }
+
+    private final Position pos = new Position();
+    private final int[][] moveBuffers = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] orderScores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    // Triangular principal variation: pvTable[ply] holds the best line found from that ply
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[] previousPv = new int[MAX_PLY + 1];
+    private int previousPvLength;
+    // Move played at each ply on the current line, so a node knows what it is replying to
+    private final int[] playedMoves = new int[MAX_PLY + 1];
+    private final int[][] triedQuiets = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final MoveOrdering ordering = new MoveOrdering();
+    private final MoveGenerator generator = new MoveGenerator();
+    private final StaticExchange exchange = new StaticExchange();
+    private final EvalCache evalCache = new EvalCache();
+    private final TranspositionTable tt;
+    private final SearchOptions options;
+
+    private long nodes;
+    private long deadline;
+    private long startMs;
+    private SearchListener listener;
+    private Tablebases tablebases;
+    private long nodeLimit;
+    private boolean limitsActive;
+    private boolean stopped;
+    private volatile boolean stopRequested;
+    private int completedDepth;
+    private int bestScore;
+
+    public Searcher(TranspositionTable tt) {
+        this(tt, SearchOptions.ALL);
+    }
+
+    public Searcher(TranspositionTable tt, SearchOptions options) {
+        this.tt = tt;
+        this.options = options;
+    }
+
+    /**
+     * Deepens one ply at a time over the given root moves until a limit is hit, and returns the best move of
+     * the deepest completed iteration ({@link Moves#NONE} when the list is empty). Each iteration searches
+     * the previous principal variation first.
+     */
+    public int search(Position root, int[] rootMoves, int count, SearchLimits limits) {
+        return run(root, rootMoves, count, limits, 1, false);
+    }
+
+    /**
+     * Lazy SMP helper entry point: searches the same root as the main thread but starts at a staggered depth
+     * and may be stopped before finishing its first iteration. Its value is in the entries it leaves in the
+     * shared transposition table.
+     */
+    public int searchAsHelper(Position root, int[] rootMoves, int count, SearchLimits limits, int helperIndex) {
+        return run(root, rootMoves, count, limits, 1 + (helperIndex & 1), true);
+    }
+
+    /** Called after every completed iteration; null for none. */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /** Endgame tables to score small positions with; null for none. */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /** Asks a running search to stop at its next limit check; safe to call from any thread. */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    // Forgets a stop request left over from the previous search, before a pooled searcher is reused
+    void clearStop() {
+        stopRequested = false;
+    }
+
+    // Forgets the move-ordering history of earlier searches, so the next one searches like a new searcher would
+    void clearHistory() {
+        ordering.clear();
+    }
+
+    TranspositionTable getTranspositionTable() {
+        return tt;
+    }
+
+    private int run(Position root, int[] rootMoves, int count, SearchLimits limits, int firstDepth, boolean helper) {
+        if (count == 0)
+            return Moves.NONE;
+
+        startMs = System.currentTimeMillis();
+        deadline = limits.getMovetimeMs() == SearchLimits.NO_LIMIT ? Long.MAX_VALUE
+                : startMs + limits.getMovetimeMs();
+        nodeLimit = limits.getMaxNodes() == SearchLimits.NO_LIMIT ? Long.MAX_VALUE : limits.getMaxNodes();
+        nodes = 0;
+        stopped = stopRequested;
+        limitsActive = helper;
+        completedDepth = 0;
+        previousPvLength = 0;
+
+        pos.copyFrom(root);
+        ordering.newSearch();
+        int[] moves = moveBuffers[0];
+        int[] scores = orderScores[0];
+        System.arraycopy(rootMoves, 0, moves, 0, count);
+        ordering.score(pos, moves, scores, count, 0, TranspositionTable.move(tt.probe(root.hash())), Moves.NONE,
+                Moves.NONE);
+        for (int i = 0; i < count; i++)
+            MoveOrdering.pickNext(moves, scores, i, count); // The root list is kept fully sorted
+
+        int bestMove = moves[0];
+        for (int depth = firstDepth; depth <= limits.getMaxDepth(); depth++) {
+            int score = searchRoot(moves, count, depth);
+            if (stopped)
+                break; // Partial iterations are discarded
+
+            bestMove = pvTable[0][0];
+            bestScore = score;
+            completedDepth = depth;
+            previousPvLength = pvLength[0];
+            System.arraycopy(pvTable[0], 0, previousPv, 0, previousPvLength);
+            moveToFront(moves, count, bestMove);
+            if (listener != null)
+                listener.onIteration(new SearchInfo(depth, score, java.util.Arrays.copyOf(previousPv, previousPvLength),
+                        nodes, System.currentTimeMillis() - startMs));
+
+            limitsActive = true; // Depth 1 always completes; deeper iterations may be cut short
+            if (Math.abs(score) >= MATE_BOUND || System.currentTimeMillis() >= deadline)
+                break;
+        }
+        return bestMove;
+    }
+
+    /** Convenience for a fixed-depth search without time or node limits. */
+    public int search(Position root, int[] rootMoves, int count, int depth) {
+        return search(root, rootMoves, count, SearchLimits.depth(depth));
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /** This searcher's evaluation caches, for their hit rates. */
+    public EvalCache getEvalCache() {
+        return evalCache;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /** Score of the last completed iteration, from the side to move's point of view. */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    private int searchRoot(int[] moves, int count, int depth) {
+        pvLength[0] = 0;
+        int alpha = -INFINITY;
+        for (int i = 0; i < count; i++) {
+            playedMoves[0] = moves[i];
+            pos.makeMove(moves[i]);
+            int score;
+            if (i == 0) {
+                score = -negamax(1, depth - 1, -INFINITY, -alpha, true, true);
+            } else {
+                // Later root moves only have to prove they are worse; re-search the ones that are not
+                score = -negamax(1, depth - 1, -alpha - 1, -alpha, false, true);
+                if (score > alpha && !stopped)
+                    score = -negamax(1, depth - 1, -INFINITY, -alpha, false, true);
+            }
+            pos.unmakeMove(moves[i]);
+            if (stopped)
+                return 0;
+            if (score > alpha || i == 0) {
+                alpha = score;
+                updatePv(0, moves[i]);
+            }
+        }
+        tt.store(pos.hash(), pvTable[0][0], toTableScore(alpha, 0), depth, TranspositionTable.BOUND_EXACT);
+        return alpha;
+    }
+
+    /**
+     * Principal variation search: the first move gets the full window and later ones a null window, re-searched
+     * only if they beat alpha. Nodes searched with a null window may be pruned or reduced as {@link #options}
+     * allows.
+     *
+     * @param allowNull false right after a null move, so two passes in a row cannot hide a threat
+     */
+    private int negamax(int ply, int depth, int alpha, int beta, boolean onPv, boolean allowNull) {
+        pvLength[ply] = ply;
+        if ((++nodes & LIMIT_CHECK_INTERVAL) == 0)
+            checkLimits();
+        if (stopped)
+            return 0;
+        if (ply == MAX_PLY)
+            return evaluate();
+        if (tablebases != null) {
+            int score = tablebases.probe(pos, ply);
+            if (score != Tablebases.NO_SCORE)
+                return score;
+        }
+        if (depth <= 0)
+            return quiescence(ply, alpha, beta);
+
+        long key = pos.hash();
+        long entry = tt.probe(key);
+        int hashMove = Moves.NONE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (!onPv && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTableScore(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && score <= alpha))
+                    return score;
+            }
+        }
+
+        int us = pos.sideToMove();
+        boolean inCheck = Attacks.isInCheck(pos, us);
+        boolean pvNode = beta - alpha > 1;
+        boolean futile = false;
+        if (!pvNode && !inCheck) {
+            int staticEval = evaluate();
+
+            // Reverse futility: so far above beta that a shallow search will not bring it back down
+            if (options.isReverseFutility() && depth <= REVERSE_FUTILITY_DEPTH && Math.abs(beta) < MATE_BOUND
+                    && staticEval - REVERSE_FUTILITY_MARGIN * depth >= beta)
+                return staticEval;
+
+            // Null move: if passing still fails high, a real move almost surely would. Positions with only
+            // pawns left are skipped, since there passing can be the one thing the side cannot do (zugzwang).
+            if (options.isNullMove() && allowNull && depth >= NULL_MOVE_MIN_DEPTH && staticEval >= beta
+                    && hasPieces(us)) {
+                int reduction = NULL_MOVE_REDUCTION + depth / 6;
+                playedMoves[ply] = Moves.NONE;
+                pos.makeNullMove();
+                int score = -negamax(ply + 1, depth - 1 - reduction, -beta, -beta + 1, false, false);
+                pos.unmakeNullMove();
+                if (stopped)
+                    return 0;
+                if (score >= beta)
+                    return score >= MATE_BOUND ? beta : score; // Unproven mates are not trusted
+            }
+
+            // Futility: near the leaves, quiet moves cannot lift a hopeless static score above alpha
+            futile = options.isFutility() && depth <= FUTILITY_DEPTH && Math.abs(alpha) < MATE_BOUND
+                    && staticEval + FUTILITY_MARGIN * depth <= alpha;
+        }
+
+        int pvMove = onPv && ply < previousPvLength ? previousPv[ply] : Moves.NONE;
+        int[] moves = moveBuffers[ply];
+        int[] scores = orderScores[ply];
+        int previousMove = playedMoves[ply - 1];
+        int count = generator.generatePseudoLegal(pos, moves, 0);
+        ordering.score(pos, moves, scores, count, ply, hashMove, pvMove, previousMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Moves.NONE;
+        int legal = 0;
+        int quiets = 0;
+        for (int i = 0; i < count; i++) {
+            int move = MoveOrdering.pickNext(moves, scores, i, count);
+            pos.makeMove(move);
+            if (Attacks.isInCheck(pos, us)) {
+                pos.unmakeMove(move);
+                continue;
+            }
+            legal++;
+
+            boolean quiet = !Moves.isCapture(move) && !Moves.isPromotion(move);
+            boolean givesCheck = Attacks.isInCheck(pos, us ^ 1);
+            if (futile && quiet && !givesCheck && legal > 1) {
+                pos.unmakeMove(move);
+                continue;
+            }
+
+            playedMoves[ply] = move;
+            int newDepth = depth - 1;
+            int score;
+            if (legal == 1) {
+                score = -negamax(ply + 1, newDepth, -beta, -alpha, onPv && move == pvMove, true);
+            } else {
+                // Late quiet moves are searched shallower first and only get full depth if they look good
+                int reduction = 0;
+                if (options.isLateMoveReductions() && depth >= LMR_MIN_DEPTH && legal > LMR_MIN_MOVES && quiet
+                        && !inCheck && !givesCheck)
+                    reduction = Math.min(LMR_REDUCTIONS[Math.min(depth, MAX_PLY)][Math.min(legal, 63)], newDepth - 1);
+                score = -negamax(ply + 1, newDepth - reduction, -alpha - 1, -alpha, false, true);
+                if (score > alpha && reduction > 0 && !stopped)
+                    score = -negamax(ply + 1, newDepth, -alpha - 1, -alpha, false, true);
+                if (score > alpha && score < beta && !stopped)
+                    score = -negamax(ply + 1, newDepth, -beta, -alpha, false, true);
+            }
+            pos.unmakeMove(move);
+            if (stopped)
+                return 0;
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                }
+                if (alpha >= beta) {
+                    if (quiet)
+                        ordering.updateQuietCutoff(pos, move, ply, depth, previousMove, triedQuiets[ply], quiets);
+                    break;
+                }
+            }
+            if (quiet)
+                triedQuiets[ply][quiets++] = move;
+        }
+
+        if (legal == 0)
+            return inCheck ? -MATE_SCORE + ply : 0; // Checkmate or stalemate
+
+        int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                : best > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        tt.store(key, bound == TranspositionTable.BOUND_UPPER ? Moves.NONE : bestMove, toTableScore(best, ply), depth,
+                bound);
+        return best;
+    }
+
+    private boolean hasPieces(int color) {
+        return (pos.occupancy(color) & ~pos.pieces(color, Position.PAWN) & ~pos.pieces(color, Position.KING)) != 0;
+    }
+
+    /**
+     * Searches captures (and queen promotions) until the position is quiet. The side to move may stand pat on
+     * the static evaluation; captures that cannot lift alpha even with a margin, or that lose material by
+     * static exchange, are skipped. In check every evasion is searched instead, since standing pat is not an
+     * option there. Results are not stored in the transposition table.
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if ((++nodes & LIMIT_CHECK_INTERVAL) == 0)
+            checkLimits();
+        if (stopped)
+            return 0;
+        if (ply == MAX_PLY)
+            return evaluate();
+
+        int us = pos.sideToMove();
+        boolean inCheck = Attacks.isInCheck(pos, us);
+        int standPat = -INFINITY;
+        int[] moves = moveBuffers[ply];
+        int count;
+        if (inCheck) {
+            count = generator.generatePseudoLegal(pos, moves, 0);
+        } else {
+            standPat = evaluate();
+            if (standPat >= beta)
+                return standPat;
+            if (standPat > alpha)
+                alpha = standPat;
+            count = generator.generateCaptures(pos, moves, 0);
+        }
+        int[] scores = orderScores[ply];
+        if (inCheck)
+            ordering.score(pos, moves, scores, count, ply, Moves.NONE, Moves.NONE, playedMoves[ply - 1]);
+        else
+            ordering.scoreCaptures(pos, moves, scores, count);
+
+        int best = standPat;
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            int move = MoveOrdering.pickNext(moves, scores, i, count);
+            if (!inCheck) {
+                if (!Moves.isPromotion(move) && standPat + capturedValue(move) + DELTA_MARGIN <= alpha)
+                    continue;
+                if (exchange.evaluate(pos, move) < 0)
+                    continue;
+            }
+            pos.makeMove(move);
+            if (Attacks.isInCheck(pos, us)) {
+                pos.unmakeMove(move);
+                continue;
+            }
+            legal++;
+
+            playedMoves[ply] = move;
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            pos.unmakeMove(move);
+            if (stopped)
+                return 0;
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                }
+                if (alpha >= beta)
+                    break;
+            }
+        }
+
+        if (inCheck && legal == 0)
+            return -MATE_SCORE + ply;
+        return best;
+    }
+
+    private int capturedValue(int move) {
+        if (Moves.flags(move) == Moves.EN_PASSANT)
+            return Evaluator.pieceValue(Position.PAWN);
+        int victim = pos.pieceAt(Moves.to(move));
+        return victim == Position.EMPTY ? 0 : Evaluator.pieceValue(Position.typeOf(victim));
+    }
+
+    /** Static evaluation from the side to move's point of view. */
+    private int evaluate() {
+        int score = evalCache.evaluate(pos);
+        return pos.isWhiteToMove() ? score : -score;
+    }
+
+    private void checkLimits() {
+        if (stopRequested || (limitsActive && (nodes >= nodeLimit || System.currentTimeMillis() >= deadline)))
+            stopped = true;
+    }
+
+    private void updatePv(int ply, int move) {
+        int[] line = pvTable[ply];
+        line[ply] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, line, ply + 1, childLength - (ply + 1));
+        pvLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    private static void moveToFront(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    /** Moves to mate for a mate score (negative when being mated), 0 for any other score. */
+    public static int mateIn(int score) {
+        if (score >= MATE_BOUND)
+            return (MATE_SCORE - score + 1) / 2;
+        if (score <= -MATE_BOUND)
+            return -(MATE_SCORE + score + 1) / 2;
+        return 0;
+    }
+
+    // Mate scores are stored relative to the node so they stay correct when reached at another ply
+    private static int toTableScore(int score, int ply) {
+        if (score >= MATE_BOUND)
+            return score + ply;
+        if (score <= -MATE_BOUND)
+            return score - ply;
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if (score >= MATE_BOUND)
+            return score - ply;
+        if (score <= -MATE_BOUND)
+            return score + ply;
+        return score;
+    }
+}
@@ -0,0 +1,98 @@
+package com.chess.engine;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Idle {@link Searcher}s kept from one search to the next. A searcher's move buffers, principal variation
+ * table and evaluation caches are then allocated once for each thread that searches at the same time, not
+ * once per search, and the caches stay warm. A {@link ParallelSearch} takes a searcher for each of its threads
+ * and hands them back when it returns; in between, only their per-search state is reset.
+ *
+ * The pool never shrinks, so it holds as many searchers as were ever busy at once. That is bounded by the
+ * executors that run searches.
+ *
+ * With {@link #withPrivateTables} every searcher has a transposition table of its own instead, emptied along with
+ * the move-ordering history before each search it runs from the root. Its searches then repeat exactly, whatever
+ * ran before them or at the same time, while the tables are still allocated only once. Such a pool is for
+ * single-threaded searches: helpers would not share the main thread's table.
+ *
+ * Each searcher's evaluation cache counts are added up here when it comes back,
+ * so the hit rates cover every search the pool served. Safe to use from any thread.
+ */
+public final class SearcherPool {
+
+    // Null when every searcher has a table of its own, of hashMb
+    private final TranspositionTable tt;
+    private final int hashMb;
+    private final SearchOptions options;
+    private final Queue<Searcher> idle = new ConcurrentLinkedQueue<>();
+    private final LongAdder pawnProbes = new LongAdder();
+    private final LongAdder pawnHits = new LongAdder();
+    private final LongAdder evalProbes = new LongAdder();
+    private final LongAdder evalHits = new LongAdder();
+
+    /** Searchers that all probe the shared {@code tt}. */
+    public SearcherPool(TranspositionTable tt, SearchOptions options) {
+        this(tt, 0, options);
+    }
+
+    /** Searchers that each probe a table of {@code hashMb} of their own, cleared before every search. */
+    public static SearcherPool withPrivateTables(int hashMb, SearchOptions options) {
+        return new SearcherPool(null, hashMb, options);
+    }
+
+    private SearcherPool(TranspositionTable tt, int hashMb, SearchOptions options) {
+        this.tt = tt;
+        this.hashMb = hashMb;
+        this.options = options;
+    }
+
+    // An idle searcher, or a new one when every searcher is busy
+    Searcher acquire() {
+        Searcher searcher = idle.poll();
+        if (searcher == null)
+            return new Searcher(tt == null ? new TranspositionTable(hashMb) : tt, options);
+        searcher.clearStop();
+        searcher.getEvalCache().resetCounts();
+        return searcher;
+    }
+
+    // Readies the tables for a search that {@code main} runs from the root
+    void newSearch(Searcher main) {
+        if (tt == null) {
+            main.getTranspositionTable().clear();
+            main.clearHistory();
+        }
+        main.getTranspositionTable().newSearch();
+    }
+
+    // The caller must be done with the searcher, including on every thread it ran on
+    void release(Searcher searcher) {
+        EvalCache cache = searcher.getEvalCache();
+        pawnProbes.add(cache.getPawnProbes());
+        pawnHits.add(cache.getPawnHits());
+        evalProbes.add(cache.getEvalProbes());
+        evalHits.add(cache.getEvalHits());
+        searcher.setListener(null);
+        idle.offer(searcher);
+    }
+
+    /** Pawn-structure lookups of every finished search, made only when the evaluation table misses. */
+    public long getPawnProbes() {
+        return pawnProbes.sum();
+    }
+
+    public long getPawnHits() {
+        return pawnHits.sum();
+    }
+
+    public long getEvalProbes() {
+        return evalProbes.sum();
+    }
+
+    public long getEvalHits() {
+        return evalHits.sum();
+    }
+}
@@ -0,0 +1,70 @@
+package com.chess.engine;
+
+/**
+ * Static exchange evaluation: the material balance of the capture sequence on one square when both sides
+ * always recapture with their least valuable attacker and may stop whenever continuing would lose material.
+ * Sliders hidden behind a capturing piece join the exchange as it uncovers them. Instances keep a scratch
+ * buffer and are not thread-safe.
+ */
+public final class StaticExchange {
+
+    // One slot for the first victim plus one per capture; no more than 32 pieces can take part
+    private final int[] gain = new int[33];
+
+    /**
+     * Material the side to move wins by playing {@code move} and continuing the exchange on its target square,
+     * in {@link Evaluator} units. Negative means the capture loses material.
+     */
+    public int evaluate(Position pos, int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int attackerType = Position.typeOf(pos.pieceAt(from));
+        int victim = pos.pieceAt(to);
+
+        long occupied = pos.occupied();
+        int depth = 0;
+        if (Moves.flags(move) == Moves.EN_PASSANT) {
+            gain[0] = Evaluator.pieceValue(Position.PAWN);
+            occupied ^= 1L << (to + (pos.sideToMove() == Position.WHITE ? -8 : 8));
+        } else {
+            gain[0] = victim == Position.EMPTY ? 0 : Evaluator.pieceValue(Position.typeOf(victim));
+        }
+        if (Moves.isPromotion(move)) {
+            attackerType = Moves.promotionType(move);
+            gain[0] += Evaluator.pieceValue(attackerType) - Evaluator.pieceValue(Position.PAWN);
+        }
+
+        long fromBit = 1L << from;
+        int side = pos.sideToMove();
+        while (true) {
+            depth++;
+            // Score if the piece now standing on the square is taken back
+            gain[depth] = Evaluator.pieceValue(attackerType) - gain[depth - 1];
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0)
+                break; // Neither side would keep going from here
+
+            occupied ^= fromBit;
+            long attackers = Attacks.attackersTo(pos, to, occupied) & occupied;
+            side ^= 1;
+
+            long candidates = attackers & pos.occupancy(side);
+            if (candidates == 0)
+                break;
+            attackerType = leastValuable(pos, side, candidates);
+            fromBit = Long.lowestOneBit(candidates & pos.pieces(side, attackerType));
+            if (attackerType == Position.KING && (attackers & pos.occupancy(side ^ 1)) != 0)
+                break; // The king cannot recapture into a defended square
+        }
+        while (--depth > 0)
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        return gain[0];
+    }
+
+    private static int leastValuable(Position pos, int side, long candidates) {
+        for (int type = Position.PAWN; type < Position.KING; type++) {
+            if ((candidates & pos.pieces(side, type)) != 0)
+                return type;
+        }
+        return Position.KING;
+    }
+}
@@ -0,0 +1,355 @@
+package com.chess.engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link Tablebases} files by retrograde analysis. Tables reached by a capture or promotion are built
+ * first, so every move either stays in the table being built or lands on a known value. Then, one distance at
+ * a time, each newly decided position is un-moved to its predecessors: a predecessor of a lost position is won
+ * one ply later, and a position is lost once every move out of it has been shown to lose. Each position keeps a
+ * count of its undecided moves for that.
+ *
+ * <pre>
+ * java -cp target/classes com.chess.engine.TablebaseGenerator tablebases [KQK KRK KPK ...]
+ * </pre>
+ *
+ * Runs offline and needs no input files; with no table names it builds {@link #DEFAULT_TABLES}.
+ */
+public final class TablebaseGenerator {
+
+    public static final List<String> DEFAULT_TABLES = List.of("KQK", "KRK", "KPK", "KBBK", "KBNK", "KQKR");
+
+    private static final int NONE = 255;
+
+    // Slot -> finished values of every table built so far, dependencies included
+    private final Map<Integer, byte[]> tables = new HashMap<>();
+    private final Map<Integer, int[]> materials = new HashMap<>();
+    private final MoveGenerator generator = new MoveGenerator();
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * Builds the named table (e.g. "KQKR") and any it depends on.
+     *
+     * @throws IllegalArgumentException if the name is not a material set with at most {@link Tablebases#MAX_MEN}
+     *                                  men
+     */
+    public byte[] generate(String name) {
+        return generate(Tablebases.parseName(name));
+    }
+
+    /** Every table built so far, keyed by file name. */
+    public Map<String, byte[]> getTables() {
+        Map<String, byte[]> byName = new HashMap<>();
+        for (Map.Entry<Integer, byte[]> t : tables.entrySet())
+            byName.put(Tablebases.fileName(materials.get(t.getKey())), t.getValue());
+        return byName;
+    }
+
+    private byte[] generate(int[] codes) {
+        int slot = Tablebases.slot(codes);
+        byte[] values = tables.get(slot);
+        if (values != null)
+            return values;
+        for (int[] dependency : dependencies(codes)) {
+            if (!Tablebases.isDrawnMaterial(Tablebases.slot(dependency)))
+                generate(dependency);
+        }
+        long start = System.currentTimeMillis();
+        values = new Table(codes).build();
+        tables.put(slot, values);
+        materials.put(slot, codes);
+        System.out.println(Tablebases.name(codes) + ": " + summary(values) + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return values;
+    }
+
+    // Material left after any capture or promotion, oriented like the tables
+    private static List<int[]> dependencies(int[] codes) {
+        List<int[]> result = new ArrayList<>();
+        for (int i = 0; i < codes.length; i++) {
+            result.add(canonical(without(codes, i)));
+            if (Position.typeOf(codes[i]) != Position.PAWN)
+                continue;
+            int color = Position.colorOf(codes[i]);
+            for (int type = Position.KNIGHT; type <= Position.QUEEN; type++) {
+                int[] promoted = codes.clone();
+                promoted[i] = Position.piece(color, type);
+                result.add(canonical(promoted));
+                for (int j = 0; j < codes.length; j++) {
+                    if (j != i)
+                        result.add(canonical(without(promoted, j)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int[] without(int[] codes, int i) {
+        int[] rest = new int[codes.length - 1];
+        System.arraycopy(codes, 0, rest, 0, i);
+        System.arraycopy(codes, i + 1, rest, i, codes.length - i - 1);
+        return rest;
+    }
+
+    private static int[] canonical(int[] codes) {
+        return Tablebases.parseName(Tablebases.name(codes));
+    }
+
+    private static String summary(byte[] values) {
+        int wins = 0;
+        int losses = 0;
+        int draws = 0;
+        int longest = 0;
+        for (byte b : values) {
+            int v = b & 0xFF;
+            if (v == Tablebases.DRAW)
+                draws++;
+            else if (v != Tablebases.ILLEGAL) {
+                if ((v & 1) == 1)
+                    wins++;
+                else
+                    losses++;
+                longest = Math.max(longest, v);
+            }
+        }
+        return wins + " won, " + losses + " lost, " + draws + " drawn, longest mate " + longest + " plies";
+    }
+
+    /** Working state for one table. */
+    private final class Table {
+        private final int[] codes;
+        private final int men;
+        private final boolean identical;
+        private final int size;
+        private final int slot;
+        private final byte[] values;
+        // Moves not yet known to lose for the mover: in-table moves plus drawing exits
+        private final byte[] undecided;
+        // Fastest win through a capture or promotion, NONE if there is none
+        private final byte[] exitWin;
+        // Slowest loss through a capture or promotion, used when every move loses
+        private final byte[] exitLoss;
+        private final Position pos = new Position();
+        // White king, black king, then the pieces in table order
+        private final int[] squares = new int[4];
+        private final int[] pieces = new int[4];
+        private int highest;
+
+        Table(int[] codes) {
+            this.codes = codes;
+            this.men = codes.length;
+            this.identical = men == 2 && codes[0] == codes[1];
+            this.size = Tablebases.size(men);
+            this.slot = Tablebases.slot(codes);
+            this.values = new byte[size];
+            this.undecided = new byte[size];
+            this.exitWin = new byte[size];
+            this.exitLoss = new byte[size];
+            pieces[0] = Position.piece(Position.WHITE, Position.KING);
+            pieces[1] = Position.piece(Position.BLACK, Position.KING);
+            for (int i = 0; i < men; i++)
+                pieces[2 + i] = codes[i];
+        }
+
+        byte[] build() {
+            Arrays.fill(values, (byte) Tablebases.DRAW);
+            Arrays.fill(exitWin, (byte) NONE);
+            for (int index = 0; index < size; index++)
+                initialize(index);
+            for (int level = 0; level <= highest; level++) {
+                for (int index = 0; index < size; index++) {
+                    int v = values[index] & 0xFF;
+                    if (v == Tablebases.DRAW && (exitWin[index] & 0xFF) == level) {
+                        values[index] = (byte) level;
+                        v = level;
+                    }
+                    if (v == level)
+                        retract(index, level);
+                }
+            }
+            return values;
+        }
+
+        // Fills squares[] from an index and returns the side to move
+        private int decode(int index) {
+            int rest = index;
+            for (int i = men - 1; i >= 0; i--) {
+                squares[2 + i] = rest & 63;
+                rest >>>= 6;
+            }
+            squares[1] = rest & 63;
+            rest >>>= 6;
+            squares[0] = Position.square((rest & 31) / 4, (rest & 31) % 4);
+            return rest >>> 5;
+        }
+
+        private boolean isValid() {
+            long seen = 0;
+            for (int i = 0; i < 2 + men; i++) {
+                long bit = 1L << squares[i];
+                if ((seen & bit) != 0)
+                    return false;
+                seen |= bit;
+                int row = Position.rowOf(squares[i]);
+                if (Position.typeOf(pieces[i]) == Position.PAWN && (row == 0 || row == 7))
+                    return false;
+            }
+            return !identical || squares[2] < squares[3];
+        }
+
+        private void initialize(int index) {
+            int stm = decode(index);
+            if (!isValid()) {
+                values[index] = (byte) Tablebases.ILLEGAL;
+                return;
+            }
+            for (int i = 0; i < 2 + men; i++)
+                pos.putPiece(squares[i], pieces[i]);
+            pos.setSideToMove(stm);
+            try {
+                if (Attacks.isInCheck(pos, stm ^ 1)) {
+                    values[index] = (byte) Tablebases.ILLEGAL;
+                    return;
+                }
+                int count = generator.generateLegal(pos, moves, 0);
+                if (count == 0) {
+                    if (Attacks.isInCheck(pos, stm))
+                        values[index] = 0; // Checkmate; stalemate stays a draw
+                    return;
+                }
+                int open = 0;
+                int win = NONE;
+                int loss = 0;
+                for (int i = 0; i < count; i++) {
+                    int move = moves[i];
+                    if (!Moves.isCapture(move) && !Moves.isPromotion(move)) {
+                        open++;
+                        continue;
+                    }
+                    pos.makeMove(move);
+                    int v = exitValue();
+                    pos.unmakeMove(move);
+                    if (v == Tablebases.DRAW)
+                        open++;
+                    else if ((v & 1) == 0)
+                        win = Math.min(win, v + 1);
+                    else
+                        loss = Math.max(loss, v + 1);
+                }
+                undecided[index] = (byte) open;
+                exitWin[index] = (byte) win;
+                exitLoss[index] = (byte) loss;
+                if (win != NONE)
+                    raiseHighest(win);
+                else if (open == 0)
+                    decide(index, loss);
+            } finally {
+                for (int i = 0; i < 2 + men; i++)
+                    pos.removePiece(squares[i]);
+                pos.setSideToMove(Position.WHITE);
+            }
+        }
+
+        // Value of the position after a capture or promotion, from another table or a material draw
+        private int exitValue() {
+            long location = Tablebases.locate(pos);
+            int exitSlot = Tablebases.slotOf(location);
+            if (exitSlot == slot)
+                throw new IllegalStateException("Capture or promotion kept the material of " + Tablebases.name(codes));
+            if (Tablebases.isDrawnMaterial(exitSlot))
+                return Tablebases.DRAW;
+            return tables.get(exitSlot)[Tablebases.indexOf(location)] & 0xFF;
+        }
+
+        // Visits every position one non-capturing move before the decided one at index
+        private void retract(int index, int level) {
+            int mover = decode(index) ^ 1;
+            long occupied = 0;
+            for (int i = 0; i < 2 + men; i++)
+                occupied |= 1L << squares[i];
+            for (int i = 0; i < 2 + men; i++) {
+                if (Position.colorOf(pieces[i]) != mover)
+                    continue;
+                int to = squares[i];
+                long origins = origins(Position.typeOf(pieces[i]), mover, to, occupied) & ~occupied;
+                while (origins != 0) {
+                    squares[i] = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    visitPredecessor(Tablebases.index(mover, squares[0], squares[1], squares[2], squares[3], men,
+                            identical), level);
+                }
+                squares[i] = to;
+            }
+        }
+
+        private long origins(int type, int color, int to, long occupied) {
+            switch (type) {
+                case Position.PAWN:
+                    int step = color == Position.WHITE ? -8 : 8;
+                    int row = Position.rowOf(to);
+                    if (color == Position.WHITE ? row < 2 : row > 5)
+                        return 0;
+                    long single = 1L << (to + step);
+                    if ((occupied & single) != 0)
+                        return 0;
+                    boolean doublePush = row == (color == Position.WHITE ? 3 : 4);
+                    return doublePush ? single | (1L << (to + 2 * step)) : single;
+                case Position.KNIGHT:
+                    return Attacks.knight(to);
+                case Position.BISHOP:
+                    return Attacks.bishop(to, occupied);
+                case Position.ROOK:
+                    return Attacks.rook(to, occupied);
+                case Position.QUEEN:
+                    return Attacks.queen(to, occupied);
+                default:
+                    return Attacks.king(to);
+            }
+        }
+
+        private void visitPredecessor(int index, int level) {
+            if ((values[index] & 0xFF) != Tablebases.DRAW)
+                return; // Illegal or already decided
+            if ((level & 1) == 0) {
+                decide(index, level + 1); // Moves into a lost position
+            } else if ((exitWin[index] & 0xFF) == NONE && --undecided[index] == 0) {
+                decide(index, Math.max(level + 1, exitLoss[index] & 0xFF)); // Every move loses
+            }
+        }
+
+        private void decide(int index, int value) {
+            values[index] = (byte) value;
+            raiseHighest(value);
+        }
+
+        private void raiseHighest(int value) {
+            if (value > Tablebases.MAX_DTM)
+                throw new IllegalStateException(Tablebases.name(codes) + " has a mate longer than "
+                        + Tablebases.MAX_DTM + " plies");
+            highest = Math.max(highest, value);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: TablebaseGenerator <dir> [KQK KRK ...]");
+            return;
+        }
+        Path dir = Path.of(args[0]);
+        List<String> names = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : DEFAULT_TABLES;
+        TablebaseGenerator generator = new TablebaseGenerator();
+        for (String name : names)
+            generator.generate(name);
+        Files.createDirectories(dir);
+        for (Map.Entry<String, byte[]> table : generator.getTables().entrySet())
+            Files.write(dir.resolve(table.getKey()), table.getValue());
+        System.out.println(generator.getTables().size() + " tables written to " + dir);
+    }
+}
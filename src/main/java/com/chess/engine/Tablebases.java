@@ -0,0 +1,308 @@
+package com.chess.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Distance-to-mate endgame tables for positions with at most {@link #MAX_MEN} pieces, kings included, as written
+ * by {@link TablebaseGenerator}. Each table is one memory-mapped file named after its material, e.g.
+ * {@code KQKR.tb}, holding one byte per position:
+ *
+ * <pre>
+ *   0-253  plies to mate with best play: odd when the side to move mates, even when it is mated (0 = mated now)
+ *   254    not a legal position
+ *   255    draw
+ * </pre>
+ *
+ * Tables are stored with the stronger side as White; other positions are colour-flipped first. The white king
+ * is kept on files a-d by mirroring, and two identical pieces are stored in square order, so every position
+ * has exactly one index:
+ *
+ * <pre>
+ * (((sideToMove * 32 + whiteKing) * 64 + blackKing) * 64 + piece1) * 64 + piece2
+ * </pre>
+ *
+ * where whiteKing is {@code row * 4 + column}. Positions with castling rights or an en passant square are
+ * never probed, and the fifty-move rule is ignored. Lone kings, and a king and a single minor piece against a
+ * lone king, are draws without a table.
+ */
+public final class Tablebases {
+
+    public static final int MAX_MEN = 4;
+    /** Longest mate a table can record, in plies. */
+    public static final int MAX_DTM = 253;
+    /** Returned by {@link #probe} when no table covers the position. */
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+
+    static final int ILLEGAL = 254;
+    static final int DRAW = 255;
+    static final int SLOTS = 13 + 12 * 12;
+    private static final String PIECE_LETTERS = "PNBRQK";
+    private static final String FILE_SUFFIX = ".tb";
+
+    private final ByteBuffer[] tables = new ByteBuffer[SLOTS];
+    private int count;
+    private int maxMen;
+
+    private Tablebases() {
+    }
+
+    /**
+     * Maps every {@code .tb} file in {@code dir}.
+     *
+     * @throws IOException if the directory cannot be read or a file has the wrong size for its name
+     */
+    public static Tablebases open(Path dir) throws IOException {
+        Tablebases tb = new Tablebases();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int[] codes = parseName(name.substring(0, name.length() - FILE_SUFFIX.length()));
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    if (channel.size() != size(codes.length))
+                        throw new IOException("Wrong size for a " + name + " table: " + file);
+                    tb.tables[slot(codes)] = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                tb.count++;
+                tb.maxMen = Math.max(tb.maxMen, codes.length + 2);
+            }
+        }
+        return tb;
+    }
+
+    /** Number of tables loaded. */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Score of {@code pos} reached at {@code ply}, in the search's terms: a mate score counted from the root,
+     * 0 for a draw, or {@link #NO_SCORE} when no table covers the position.
+     */
+    public int probe(Position pos, int ply) {
+        if (Long.bitCount(pos.occupied()) > maxMen)
+            return NO_SCORE;
+        long location = locate(pos);
+        if (location < 0)
+            return NO_SCORE;
+        int slot = slotOf(location);
+        if (isDrawnMaterial(slot))
+            return 0;
+        ByteBuffer table = tables[slot];
+        if (table == null)
+            return NO_SCORE;
+        return toScore(table.get(indexOf(location)) & 0xFF, ply);
+    }
+
+    /**
+     * Best move by the tables among {@code legalMoves}: the fastest mate when winning, the slowest when losing.
+     * Returns {@link Moves#NONE} for a drawn position or one that is not covered, so the search can pick among
+     * the drawing moves.
+     */
+    public int bestMove(Position root, int[] legalMoves, int count) {
+        int rootScore = probe(root, 0);
+        if (count == 0 || rootScore == NO_SCORE || rootScore == 0)
+            return Moves.NONE;
+        Position pos = root.copy();
+        int best = Moves.NONE;
+        int bestScore = -Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(legalMoves[i]);
+            int score = probe(pos, 1);
+            pos.unmakeMove(legalMoves[i]);
+            if (score == NO_SCORE)
+                return Moves.NONE; // e.g. an en passant square after a double push; let the search decide
+            if (-score > bestScore) {
+                bestScore = -score;
+                best = legalMoves[i];
+            }
+        }
+        return best;
+    }
+
+    static int toScore(int value, int ply) {
+        if (value == DRAW || value == ILLEGAL)
+            return 0;
+        int mate = Searcher.MATE_SCORE - ply - value;
+        return (value & 1) == 1 ? mate : -mate;
+    }
+
+    // --- Indexing, shared with the generator ---
+
+    /**
+     * Table slot and index of a position, packed as {@code slot << 32 | index}, or -1 when it cannot be in a
+     * table (too many pieces, castling rights or an en passant square).
+     */
+    static long locate(Position pos) {
+        if (pos.castlingRights() != 0 || pos.enPassantSquare() != Position.NO_SQUARE)
+            return -1;
+        long occupied = pos.occupied();
+        if (Long.bitCount(occupied) > MAX_MEN)
+            return -1;
+        long others = occupied & ~pos.pieces(Position.WHITE, Position.KING)
+                & ~pos.pieces(Position.BLACK, Position.KING);
+        int piece1 = Position.EMPTY;
+        int square1 = 0;
+        int piece2 = Position.EMPTY;
+        int square2 = 0;
+        if (others != 0) {
+            square1 = Long.numberOfTrailingZeros(others);
+            piece1 = pos.pieceAt(square1);
+            others &= others - 1;
+            if (others != 0) {
+                square2 = Long.numberOfTrailingZeros(others);
+                piece2 = pos.pieceAt(square2);
+            }
+        }
+        int whiteKing = pos.kingSquare(Position.WHITE);
+        int blackKing = pos.kingSquare(Position.BLACK);
+        int stm = pos.sideToMove();
+
+        if (shouldFlip(piece1, piece2)) {
+            int k = whiteKing;
+            whiteKing = blackKing ^ 56;
+            blackKing = k ^ 56;
+            square1 ^= 56;
+            square2 ^= 56;
+            piece1 = flipColor(piece1);
+            piece2 = flipColor(piece2);
+            stm ^= 1;
+        }
+        // Table order: White's pieces before Black's, higher types first
+        if (piece2 != Position.EMPTY && order(piece2) > order(piece1)) {
+            int p = piece1;
+            piece1 = piece2;
+            piece2 = p;
+            int s = square1;
+            square1 = square2;
+            square2 = s;
+        }
+        int slot = piece1 == Position.EMPTY ? 0 : piece2 == Position.EMPTY ? 1 + piece1 : 13 + piece1 * 12 + piece2;
+        int men = piece1 == Position.EMPTY ? 0 : piece2 == Position.EMPTY ? 1 : 2;
+        return ((long) slot << 32) | index(stm, whiteKing, blackKing, square1, square2, men, piece1 == piece2);
+    }
+
+    static int slotOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    static int indexOf(long location) {
+        return (int) location;
+    }
+
+    /**
+     * Index of a position already oriented for its table; {@code men} is the number of non-king pieces and
+     * {@code identical} whether both are the same piece.
+     */
+    static int index(int stm, int whiteKing, int blackKing, int square1, int square2, int men, boolean identical) {
+        if (Position.columnOf(whiteKing) >= 4) {
+            whiteKing ^= 7;
+            blackKing ^= 7;
+            square1 ^= 7;
+            square2 ^= 7;
+        }
+        if (men == 2 && identical && square1 > square2) {
+            int s = square1;
+            square1 = square2;
+            square2 = s;
+        }
+        int index = (stm * 32 + Position.rowOf(whiteKing) * 4 + Position.columnOf(whiteKing)) * 64 + blackKing;
+        if (men >= 1)
+            index = index * 64 + square1;
+        if (men == 2)
+            index = index * 64 + square2;
+        return index;
+    }
+
+    /** Positions in a table with {@code men} non-king pieces. */
+    static int size(int men) {
+        return 2 * 32 * 64 << (6 * men);
+    }
+
+    // Stronger side as White: more pieces, then the higher piece type, wins
+    private static boolean shouldFlip(int piece1, int piece2) {
+        if (piece1 == Position.EMPTY)
+            return false;
+        if (piece2 == Position.EMPTY)
+            return Position.colorOf(piece1) == Position.BLACK;
+        int color1 = Position.colorOf(piece1);
+        if (color1 == Position.colorOf(piece2))
+            return color1 == Position.BLACK;
+        // One piece each
+        int white = color1 == Position.WHITE ? piece1 : piece2;
+        int black = color1 == Position.WHITE ? piece2 : piece1;
+        return Position.typeOf(black) > Position.typeOf(white);
+    }
+
+    private static int flipColor(int piece) {
+        return piece == Position.EMPTY ? piece : piece < 6 ? piece + 6 : piece - 6;
+    }
+
+    // Higher sorts first: White before Black, then by type
+    private static int order(int piece) {
+        return piece == Position.EMPTY ? -1 : (1 - Position.colorOf(piece)) * 8 + Position.typeOf(piece);
+    }
+
+    /** Slot of an oriented, sorted piece list (at most two non-king piece codes). */
+    static int slot(int[] codes) {
+        return codes.length == 0 ? 0 : codes.length == 1 ? 1 + codes[0] : 13 + codes[0] * 12 + codes[1];
+    }
+
+    /** No mate is possible: bare kings, or one side has just a knight or bishop. */
+    static boolean isDrawnMaterial(int slot) {
+        if (slot == 0)
+            return true;
+        if (slot > 12)
+            return false;
+        int type = Position.typeOf(slot - 1);
+        return type == Position.KNIGHT || type == Position.BISHOP;
+    }
+
+    /**
+     * Non-king piece codes of a table name such as "KQKR" or "KRKQ", oriented and sorted the way
+     * {@link #locate} orders them.
+     *
+     * @throws IllegalArgumentException if the name is not a material set with at most {@link #MAX_MEN} men
+     */
+    static int[] parseName(String name) {
+        int second = name.indexOf('K', 1);
+        if (!name.startsWith("K") || second < 0 || name.length() > MAX_MEN)
+            throw new IllegalArgumentException("Bad table name: " + name);
+        // Place the pieces on distinct squares of an empty board and let locate() orient and sort them
+        Position pos = new Position();
+        pos.putPiece(Position.square(0, 0), Position.piece(Position.WHITE, Position.KING));
+        pos.putPiece(Position.square(7, 7), Position.piece(Position.BLACK, Position.KING));
+        int square = Position.square(3, 0);
+        for (int i = 1; i < name.length(); i++) {
+            if (i == second)
+                continue;
+            int type = PIECE_LETTERS.indexOf(name.charAt(i));
+            if (type < 0 || type == Position.KING)
+                throw new IllegalArgumentException("Bad table name: " + name);
+            pos.putPiece(square++, Position.piece(i < second ? Position.WHITE : Position.BLACK, type));
+        }
+        int slot = slotOf(locate(pos));
+        if (slot == 0)
+            return new int[0];
+        return slot <= 12 ? new int[] { slot - 1 } : new int[] { (slot - 13) / 12, (slot - 13) % 12 };
+    }
+
+    /** File name stem of a table, e.g. "KQKR". */
+    static String name(int[] codes) {
+        StringBuilder white = new StringBuilder("K");
+        StringBuilder black = new StringBuilder("K");
+        for (int code : codes)
+            (Position.colorOf(code) == Position.WHITE ? white : black)
+                    .append(PIECE_LETTERS.charAt(Position.typeOf(code)));
+        return white.append(black).toString();
+    }
+
+    static String fileName(int[] codes) {
+        return name(codes) + FILE_SUFFIX;
+    }
+}
@@ -0,0 +1,111 @@
+package com.chess.engine;
+
+/**
+ * Fixed-size transposition table stored in a single {@code long[]}.
+ *
+ * Each entry is two longs: {@code key ^ data} and {@code data}. A reader accepts an entry only when the two
+ * XOR back to the probed key, so a torn write from another thread reads as a miss instead of a wrong score.
+ * That makes the table safe to share between searches without locks. Entries are grouped in buckets of two;
+ * a store overwrites the matching entry, otherwise the shallower or older one.
+ *
+ * Data layout: bits 0-15 move, 16-31 score, 32-39 depth, 40-41 bound, 42-47 search generation.
+ */
+public final class TranspositionTable {
+
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_UPPER = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    private static final int LONGS_PER_BUCKET = 4;
+    private static final int GENERATION_MASK = 63;
+
+    private final long[] table;
+    private final int bucketMask;
+    // Bumped by every search that starts on the table, possibly several at once; read by all their threads
+    private volatile int generation;
+
+    public TranspositionTable(int sizeMb) {
+        long bytes = Math.max(1, sizeMb) * 1024L * 1024L;
+        // Round down to a power of two bucket count so the index is a mask
+        long buckets = Long.highestOneBit(Math.max(1, bytes / (LONGS_PER_BUCKET * 8L)));
+        buckets = Math.min(buckets, 1L << 28);
+        this.table = new long[(int) buckets * LONGS_PER_BUCKET];
+        this.bucketMask = (int) buckets - 1;
+    }
+
+    /** Ages existing entries so the next search prefers to overwrite them. */
+    public synchronized void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    /** Empties the table and starts the generations over, as in a new table; not while it is being searched. */
+    public synchronized void clear() {
+        java.util.Arrays.fill(table, 0L);
+        generation = 0;
+    }
+
+    /** Returns the packed data stored for {@code key}, or 0 on a miss. */
+    public long probe(long key) {
+        int base = index(key);
+        for (int i = base; i < base + LONGS_PER_BUCKET; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0)
+                return data;
+        }
+        return 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int base = index(key);
+        int current = generation;
+        int target = base;
+        int targetWorth = Integer.MAX_VALUE;
+        for (int i = base; i < base + LONGS_PER_BUCKET; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key) {
+                if (move == Moves.NONE)
+                    move = move(data); // Keep the old best move for ordering
+                target = i;
+                break;
+            }
+            // Stale entries from earlier searches are worth less than anything from this one
+            int worth = depth(data) - (generation(data) == current ? 0 : 256);
+            if (worth < targetWorth) {
+                targetWorth = worth;
+                target = i;
+            }
+        }
+        long data = (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) current << 42);
+        table[target] = key ^ data;
+        table[target + 1] = data;
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * LONGS_PER_BUCKET;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> 42) & GENERATION_MASK);
+    }
+}
@@ -0,0 +1,63 @@
+package com.chess.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys. The seed is fixed so a position hashes to the same key in every process, which lets keys be
+ * stored on disk or compared between servers.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5EED_C4E5_5B0A_2D1FL;
+
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_COLUMN = new long[8];
+    static final long SIDE_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] squares : PIECE_SQUARE)
+            for (int sq = 0; sq < 64; sq++)
+                squares[sq] = random.nextLong();
+        for (int i = 0; i < CASTLING.length; i++)
+            CASTLING[i] = random.nextLong();
+        for (int i = 0; i < EN_PASSANT_COLUMN.length; i++)
+            EN_PASSANT_COLUMN[i] = random.nextLong();
+        SIDE_TO_MOVE = random.nextLong();
+        CASTLING[0] = 0L; // No rights contributes nothing, so a bare position hashes from its pieces alone
+    }
+
+    private Zobrist() {
+    }
+
+    static long enPassant(int square) {
+        return square == Position.NO_SQUARE ? 0L : EN_PASSANT_COLUMN[Position.columnOf(square)];
+    }
+
+    /** Recomputes the key of a position from scratch; the incremental key must always agree with this. */
+    public static long compute(Position pos) {
+        long key = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = pos.pieceAt(sq);
+            if (piece != Position.EMPTY)
+                key ^= PIECE_SQUARE[piece][sq];
+        }
+        key ^= CASTLING[pos.castlingRights()];
+        key ^= enPassant(pos.enPassantSquare());
+        if (!pos.isWhiteToMove())
+            key ^= SIDE_TO_MOVE;
+        return key;
+    }
+
+    /** Recomputes the pawn-only key of a position from scratch; {@link Position#pawnHash()} must agree. */
+    public static long computePawns(Position pos) {
+        long key = 0L;
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            int pawn = Position.piece(color, Position.PAWN);
+            for (long pawns = pos.pieces(pawn); pawns != 0; pawns &= pawns - 1)
+                key ^= PIECE_SQUARE[pawn][Long.numberOfTrailingZeros(pawns)];
+        }
+        return key;
+    }
+}
@@ -0,0 +1,116 @@
+package com.chess.service;
+
+import com.chess.engine.Moves;
+import com.chess.engine.ParallelSearch;
+import com.chess.engine.Position;
+import com.chess.model.Move;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One AI search submitted to the search executor. The result is published through {@link #getResult()}; a null
+ * move means the position has no legal move. Cancelling stops the search whether it is still queued or already
+ * running, and the future then completes with a {@link java.util.concurrent.CancellationException}.
+ */
+public final class AiJob implements Runnable {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, CANCELLED, FAILED
+    }
+
+    private final UUID id = UUID.randomUUID();
+    // Null for a search of a client-supplied position
+    private final UUID gameId;
+    private final ParallelSearch search;
+    private final Position root;
+    private final Callable<Integer> work;
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.QUEUED);
+    private final CompletableFuture<Move> result = new CompletableFuture<>();
+    private volatile String uci;
+    private volatile String error;
+    private volatile long finishedNanos;
+
+    /**
+     * @param search the search {@code work} runs, so {@link #cancel()} can stop it
+     * @param root   the searched position, which the packed move {@code work} returns is played from
+     */
+    AiJob(UUID gameId, ParallelSearch search, Position root, Callable<Integer> work) {
+        this.gameId = gameId;
+        this.search = search;
+        this.root = root;
+        this.work = work;
+        result.whenComplete((move, e) -> finishedNanos = System.nanoTime());
+    }
+
+    @Override
+    public void run() {
+        if (!status.compareAndSet(Status.QUEUED, Status.RUNNING))
+            return; // Cancelled while it was queued
+        try {
+            int move = work.call();
+            Move modelMove = null;
+            if (move != Moves.NONE) {
+                uci = Moves.toUci(move);
+                modelMove = ChessAI.toModelMove(root.toBoard(), move);
+            }
+            if (status.compareAndSet(Status.RUNNING, Status.DONE))
+                result.complete(modelMove);
+        } catch (Exception e) {
+            error = e.getMessage();
+            if (status.compareAndSet(Status.RUNNING, Status.FAILED))
+                result.completeExceptionally(e);
+        }
+    }
+
+    /** Stops the job unless it has already finished; safe from any thread. */
+    public boolean cancel() {
+        Status s = status.get();
+        while (s == Status.QUEUED || s == Status.RUNNING) {
+            if (status.compareAndSet(s, Status.CANCELLED)) {
+                search.stop();
+                result.cancel(false);
+                return true;
+            }
+            s = status.get();
+        }
+        return false;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getGameId() {
+        return gameId;
+    }
+
+    public Status getStatus() {
+        return status.get();
+    }
+
+    public CompletableFuture<Move> getResult() {
+        return result;
+    }
+
+    /** The chosen move once the job is done, otherwise null. */
+    public Move getMove() {
+        return result.isDone() && !result.isCompletedExceptionally() ? result.join() : null;
+    }
+
+    /** The chosen move in UCI notation once the job is done, otherwise null. */
+    public String getUci() {
+        return result.isDone() && !result.isCompletedExceptionally() ? uci : null;
+    }
+
+    /** Why the search failed, or null. */
+    public String getError() {
+        return error;
+    }
+
+    long getFinishedNanos() {
+        return finishedNanos;
+    }
+}
@@ -0,0 +1,17 @@
+package com.chess.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+/** The job id is unknown, or the job finished long enough ago to have been forgotten. */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class AiJobNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AiJobNotFoundException(UUID jobId) {
+        super("No such AI job: " + jobId);
+    }
+}
@@ -0,0 +1,140 @@
+package com.chess.service;
+
+import com.chess.engine.ParallelSearch;
+import com.chess.engine.Position;
+import com.chess.dto.GameUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs AI searches as {@link AiJob}s on the bounded search executor, so request threads never block on a
+ * search. A job for a hosted game is attached to it and cancelled when the game's position changes or the game
+ * goes away. The move a game's job finds is pushed to the game's watchers. Finished jobs stay visible for a while,
+ * then are swept.
+ */
+@Service
+public class AiJobService {
+
+    private final ChessAI chessAI;
+    private final GameRegistry games;
+    private final ThreadPoolExecutor searchExecutor;
+    private final GameUpdateService updates;
+    private final Map<UUID, AiJob> jobs = new ConcurrentHashMap<>();
+    private final long retentionNanos;
+
+    /** Service whose AI moves are not pushed to anyone, for tests and tools. */
+    public AiJobService(ChessAI chessAI, GameRegistry games, ThreadPoolExecutor searchExecutor,
+            long retentionSeconds) {
+        this(chessAI, games, searchExecutor, GameUpdateService.disabled(games), retentionSeconds);
+    }
+
+    @Autowired
+    public AiJobService(ChessAI chessAI, GameRegistry games,
+            @Qualifier("searchExecutor") ThreadPoolExecutor searchExecutor, GameUpdateService updates, @Value("${chess.ai.jobs.retention-seconds:300}") long retentionSeconds) {
+        this.chessAI = chessAI;
+        this.games = games;
+        this.searchExecutor = searchExecutor;
+        this.updates = updates;
+        this.retentionNanos = TimeUnit.SECONDS.toNanos(Math.max(1, retentionSeconds));
+    }
+
+    /**
+     * Searches the current position of a hosted game.
+     *
+     * @throws GameNotFoundException    if there is no game with this id
+     * @throws SearchQueueFullException if the executor cannot take another search
+     */
+    public AiJob submit(UUID gameId, String difficulty, Long movetimeMs, Long maxNodes) {
+        GameSession game = games.get(gameId);
+        // Snapshot and attach under the lock, so a concurrent move either precedes the snapshot or cancels the job
+        return game.locked(() -> {
+            Position root = Position.fromBoard(game.getBoard(), game.isWhiteTurn());
+            AiJob job = newJob(game.getId(), root, difficulty, movetimeMs, maxNodes);
+            game.attachJob(job);
+            long version = game.getVersion();
+            job.getResult().thenAccept(move -> {
+                if (move != null)
+                    publish(game, version, job);
+            });
+            return start(job);
+        });
+    }
+
+    /**
+     * Searches a client-supplied position.
+     *
+     * @throws SearchQueueFullException if the executor cannot take another search
+     */
+    public AiJob submit(Position root, String difficulty, Long movetimeMs, Long maxNodes) {
+        return start(newJob(null, root, difficulty, movetimeMs, maxNodes));
+    }
+
+    /**
+     * @throws AiJobNotFoundException if the job is unknown or has been swept
+     */
+    public AiJob get(UUID jobId) {
+        AiJob job = jobs.get(jobId);
+        if (job == null)
+            throw new AiJobNotFoundException(jobId);
+        return job;
+    }
+
+    public AiJob cancel(UUID jobId) {
+        AiJob job = get(jobId);
+        job.cancel();
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${chess.ai.jobs.sweep-interval-ms:60000}")
+    public void evictFinished() {
+        long now = System.nanoTime();
+        jobs.values().removeIf(j -> j.getResult().isDone() && now - j.getFinishedNanos() > retentionNanos);
+    }
+
+    // A move that raced the job's completion has made its answer stale
+    private void publish(GameSession game, long version, AiJob job) {
+        game.inspect(() -> {
+            if (game.getVersion() == version && updates.isWatched(game)) {
+                GameUpdate update = new GameUpdate(GameUpdate.AI_MOVE, game.getId().toString(), version,
+                        game.getPlyCount());
+                update.setUci(job.getUci());
+                update.setJobId(job.getId().toString());
+                updates.publish(game, update);
+            }
+            return null;
+        });
+    }
+
+    private AiJob newJob(UUID gameId, Position root, String difficulty, Long movetimeMs, Long maxNodes) {
+        ParallelSearch search = chessAI.newSearch();
+        return new AiJob(gameId, search, root,
+                () -> chessAI.findMove(search, root, difficulty, movetimeMs, maxNodes));
+    }
+
+    private AiJob start(AiJob job) {
+        jobs.put(job.getId(), job);
+        // A job cancelled while queued would otherwise hold its queue slot until a worker reaches it
+        job.getResult().whenComplete((move, e) -> {
+            if (job.getStatus() == AiJob.Status.CANCELLED)
+                searchExecutor.remove(job);
+        });
+        try {
+            searchExecutor.execute(job);
+        } catch (RejectedExecutionException e) {
+            job.cancel();
+            jobs.remove(job.getId());
+            throw new SearchQueueFullException();
+        }
+        return job;
+    }
+}
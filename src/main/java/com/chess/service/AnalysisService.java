@@ -0,0 +1,100 @@
+package com.chess.service;
+
+import com.chess.dto.AnalysisInfo;
+import com.chess.engine.Moves;
+import com.chess.engine.ParallelSearch;
+import com.chess.engine.Position;
+import com.chess.engine.SearchInfo;
+import com.chess.engine.SearchLimits;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Streams a search as Server-Sent Events: one "info" event per completed iteration, then a "bestmove" event with
+ * the UCI move. Searches run on an executor of their own, so the request thread is released as soon as the
+ * stream is open and long analyses never hold up /ai-move or AI jobs. Closing the stream stops the search.
+ * <p>
+ * Analysis has its own time budget, separate from the /ai-move cap: a stream without a movetime keeps deepening
+ * until the client closes it or {@code chess.analysis.max-movetime-ms} runs out (0 lifts that cap too).
+ */
+@Service
+public class AnalysisService {
+
+    // Headroom past the movetime for the last iteration to finish, so the stream ends with bestmove, not a timeout
+    private static final long STREAM_GRACE_MS = 30_000;
+
+    private final ChessAI chessAI;
+    private final ThreadPoolExecutor analysisExecutor;
+    private final long maxMovetimeMs;
+
+    public AnalysisService(ChessAI chessAI, @Qualifier("analysisExecutor") ThreadPoolExecutor analysisExecutor,
+            @Value("${chess.analysis.max-movetime-ms:60000}") long maxMovetimeMs) {
+        this.chessAI = chessAI;
+        this.analysisExecutor = analysisExecutor;
+        this.maxMovetimeMs = Math.max(0, maxMovetimeMs);
+    }
+
+    /**
+     * @throws SearchQueueFullException if the analysis executor cannot take another search
+     */
+    public SseEmitter analyze(Position root, Long movetimeMs, Long maxNodes) {
+        long movetime = movetime(movetimeMs);
+        long nodes = maxNodes == null || maxNodes <= 0 ? SearchLimits.NO_LIMIT : maxNodes;
+        // An emitter timeout of 0 never expires; the search then runs until the client goes
+        SseEmitter emitter = new SseEmitter(movetime == SearchLimits.NO_LIMIT ? 0 : movetime + STREAM_GRACE_MS);
+        ParallelSearch search = chessAI.newSearch();
+        search.setListener(info -> send(emitter, search, SseEmitter.event().name("info").data(toInfo(info))));
+        emitter.onCompletion(search::stop);
+        emitter.onTimeout(search::stop);
+        emitter.onError(e -> search.stop());
+
+        Runnable task = () -> {
+            try {
+                int move = chessAI.analyze(search, root, movetime, nodes);
+                send(emitter, search, SseEmitter.event().name("bestmove")
+                        .data(move == Moves.NONE ? "(none)" : Moves.toUci(move)));
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        };
+        try {
+            analysisExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw new SearchQueueFullException();
+        }
+        return emitter;
+    }
+
+    // The requested movetime within the analysis cap; none requested means the whole cap
+    private long movetime(Long requested) {
+        if (requested == null || requested <= 0)
+            return maxMovetimeMs;
+        return maxMovetimeMs == SearchLimits.NO_LIMIT ? requested : Math.min(requested, maxMovetimeMs);
+    }
+
+    // A failed send means the client has gone, so there is nobody left to search for
+    private static void send(SseEmitter emitter, ParallelSearch search, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            search.stop();
+        }
+    }
+
+    private static AnalysisInfo toInfo(SearchInfo info) {
+        List<String> pv = new ArrayList<>(info.getPv().length);
+        for (int move : info.getPv())
+            pv.add(Moves.toUci(move));
+        return new AnalysisInfo(info.getDepth(), info.getScore(), info.getMateIn(), pv, info.getNodes(),
+                info.getNodesPerSecond(), info.getElapsedMs());
+    }
+}
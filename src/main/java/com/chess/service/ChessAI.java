@@ -1,372 +1,259 @@
 package com.chess.service;
 
+import com.chess.engine.MoveGenerator;
+import com.chess.engine.Moves;
+import com.chess.engine.OpeningBook;
+import com.chess.engine.ParallelSearch;
+import com.chess.engine.Position;
+import com.chess.engine.SearchLimits;
+import com.chess.engine.SearchOptions;
+import com.chess.engine.Searcher;
+import com.chess.engine.SearcherPool;
+import com.chess.engine.Tablebases;
+import com.chess.engine.TranspositionTable;
 import com.chess.model.*;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ChessAI {
 
-    private static final int MAX_DEPTH_HARD = 4;
+    private static final Logger log = LoggerFactory.getLogger(ChessAI.class);
+
+    private static final int MAX_DEPTH_HARD = Searcher.MAX_PLY - 1;
     private static final int MAX_DEPTH_MEDIUM = 2;
-    // Piece values: P=10, N=30, B=30, R=50, Q=90, K=900
-    private static final int VAL_PAWN = 10;
-    private static final int VAL_KNIGHT = 30;
-    private static final int VAL_BISHOP = 30;
-    private static final int VAL_ROOK = 50;
-    private static final int VAL_QUEEN = 90;
-    private static final int VAL_KING = 900;
+    // Time budgets: callers may ask for less, never for more than MAX_MOVETIME_MS
+    private static final long DEFAULT_MOVETIME_MS = 1000;
+    private static final long MAX_MOVETIME_MS = 10000;
+
+    // Shared by every search so positions seen in earlier /ai-move calls are remembered; null in deterministic mode
+    private final TranspositionTable transpositionTable;
+    private final int hashMb;
+    private final int threads;
+    // Deterministic mode: one thread, and a table of its own cleared before each search, so equal requests give
+    // equal moves however many run at once
+    private final boolean deterministic;
+    private final SearchOptions searchOptions;
+    private final ExecutorService helperPool;
+    // Searchers reused across calls, so their buffers, evaluation caches and, in deterministic mode, their own
+    // tables are not rebuilt for every move
+    private final SearcherPool searchers;
+    // Pool totals at the last cache report, so each report covers only the searches since the one before
+    private long reportedEvalProbes;
+    private long reportedEvalHits;
+    private long reportedPawnProbes;
+    private long reportedPawnHits;
+    // Null when no book is configured or it could not be opened
+    private final OpeningBook book;
+    // Null when no tablebase directory is configured or it could not be read
+    private final Tablebases tablebases;
+
+    /** Engine without an opening book or tablebases, for tests and benchmarks. */
+    public ChessAI(int hashMb, int threads, boolean deterministic, String pruning) {
+        this(hashMb, threads, deterministic, pruning, null, null);
+    }
 
-    public Move getBestMove(Board originalBoard, String difficulty, boolean isWhite) {
-        // Clone board to avoid mutating the game state
-        Board simBoard = cloneBoard(originalBoard);
+    @Autowired
+    public ChessAI(@Value("${chess.ai.hash-mb:16}") int hashMb,
+            @Value("${chess.ai.threads:1}") int threads,
+            @Value("${chess.ai.deterministic:false}") boolean deterministic,
+            @Value("${chess.ai.pruning:all}") String pruning,
+            @Value("${chess.ai.book:}") String bookPath,
+            @Value("${chess.ai.tablebases:}") String tablebaseDir) {
+        this.transpositionTable = deterministic ? null : new TranspositionTable(hashMb);
+        this.hashMb = hashMb;
+        this.searchOptions = SearchOptions.parse(pruning);
+        this.deterministic = deterministic;
+        this.threads = deterministic ? 1 : Math.max(1, threads);
+        this.helperPool = this.threads > 1 ? Executors.newFixedThreadPool(this.threads - 1, helperThreadFactory())
+                : null;
+        this.searchers = deterministic ? SearcherPool.withPrivateTables(hashMb, searchOptions)
+                : new SearcherPool(transpositionTable, searchOptions);
+        log.info("Chess AI configured with {} search thread(s), {} MB hash, pruning {}{}", this.threads, hashMb,
+                searchOptions, deterministic ? ", deterministic" : "");
+        this.book = openBook(bookPath);
+        this.tablebases = openTablebases(tablebaseDir);
+    }
 
-        List<Move> legalMoves = generateLegalMoves(simBoard, isWhite);
-        if (legalMoves.isEmpty())
+    // A missing or broken book is not fatal: the engine just searches every move
+    private static OpeningBook openBook(String path) {
+        if (path == null || path.isBlank())
+            return null;
+        try {
+            OpeningBook book = OpeningBook.open(Path.of(path));
+            log.info("Opening book {} loaded with {} entries", path, book.size());
+            return book;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Opening book {} not loaded: {}", path, e.getMessage());
             return null;
-
-        if ("EASY".equalsIgnoreCase(difficulty)) {
-            return legalMoves.get(new Random().nextInt(legalMoves.size()));
-        }
-
-        int depth = "MEDIUM".equalsIgnoreCase(difficulty) ? MAX_DEPTH_MEDIUM : MAX_DEPTH_HARD;
-
-        Move bestMove = null;
-        int bestValue = isWhite ? Integer.MIN_VALUE : Integer.MAX_VALUE;
-        int alpha = Integer.MIN_VALUE;
-        int beta = Integer.MAX_VALUE;
-
-        // Iterative deepening or just fixed depth? Fixed is fine for now.
-        // Sort moves for better pruning (captured pieces first)
-        sortMoves(legalMoves);
-
-        for (Move move : legalMoves) {
-            applyMove(simBoard, move);
-            int boardValue = minimax(simBoard, depth - 1, alpha, beta, !isWhite);
-            undoMove(simBoard, move);
-
-            if (isWhite) {
-                if (boardValue > bestValue) {
-                    bestValue = boardValue;
-                    bestMove = move;
-                }
-                alpha = Math.max(alpha, bestValue);
-            } else {
-                if (boardValue < bestValue) {
-                    bestValue = boardValue;
-                    bestMove = move;
-                }
-                beta = Math.min(beta, bestValue);
-            }
-            if (beta <= alpha)
-                break;
         }
-
-        return bestMove;
     }
 
-    private int minimax(Board board, int depth, int alpha, int beta, boolean isMaximizingPlayer) {
-        if (depth == 0) {
-            return evaluateBoard(board);
-        }
-
-        List<Move> legalMoves = generateLegalMoves(board, isMaximizingPlayer);
-
-        if (legalMoves.isEmpty()) {
-            if (isKingInCheck(board, isMaximizingPlayer)) {
-                return isMaximizingPlayer ? -10000 : 10000; // Checkmate
-            }
-            return 0; // Stalemate
-        }
-
-        sortMoves(legalMoves);
-
-        if (isMaximizingPlayer) {
-            int maxEval = Integer.MIN_VALUE;
-            for (Move move : legalMoves) {
-                applyMove(board, move);
-                int eval = minimax(board, depth - 1, alpha, beta, false);
-                undoMove(board, move);
-                maxEval = Math.max(maxEval, eval);
-                alpha = Math.max(alpha, eval);
-                if (beta <= alpha)
-                    break;
-            }
-            return maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            for (Move move : legalMoves) {
-                applyMove(board, move);
-                int eval = minimax(board, depth - 1, alpha, beta, true);
-                undoMove(board, move);
-                minEval = Math.min(minEval, eval);
-                beta = Math.min(beta, eval);
-                if (beta <= alpha)
-                    break;
-            }
-            return minEval;
+    private static Tablebases openTablebases(String dir) {
+        if (dir == null || dir.isBlank())
+            return null;
+        try {
+            Tablebases tablebases = Tablebases.open(Path.of(dir));
+            log.info("Tablebases {} loaded: {} table(s)", dir, tablebases.size());
+            return tablebases;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Tablebases {} not loaded: {}", dir, e.getMessage());
+            return null;
         }
     }
 
-    private void sortMoves(List<Move> moves) {
-        // Simple heuristic: Captures first
-        moves.sort((m1, m2) -> {
-            int s1 = m1.getPieceKilled() != null ? getPieceValue(m1.getPieceKilled()) : 0;
-            int s2 = m2.getPieceKilled() != null ? getPieceValue(m2.getPieceKilled()) : 0;
-            return s2 - s1; // Descending
-        });
+    private static java.util.concurrent.ThreadFactory helperThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "chess-search-helper-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
     }
 
-    private int evaluateBoard(Board board) {
-        int whiteScore = 0;
-        int blackScore = 0;
-
-        Spot[][] boxes = board.getBoxes();
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                Piece p = boxes[i][j].getPiece();
-                if (p != null) {
-                    int val = getPieceValue(p);
-                    // Add positional value (simplified)
-                    val += getPositionBonus(p, i, j);
+    @PreDestroy
+    public void shutdown() {
+        if (helperPool != null)
+            helperPool.shutdownNow();
+    }
 
-                    if (p.isWhite())
-                        whiteScore += val;
-                    else
-                        blackScore += val;
-                }
-            }
+    /** Logs the evaluation caches' hit rates over the searches since the last report, when there were any. */
+    @Scheduled(fixedDelayString = "${chess.ai.cache-report-interval-ms:600000}")
+    public synchronized void reportCacheHitRates() {
+        long evalProbes = searchers.getEvalProbes();
+        long evalHits = searchers.getEvalHits();
+        long pawnProbes = searchers.getPawnProbes();
+        long pawnHits = searchers.getPawnHits();
+        long newEvalProbes = evalProbes - reportedEvalProbes;
+        long newPawnProbes = pawnProbes - reportedPawnProbes;
+        if (newEvalProbes > 0) {
+            log.info("Evaluation cache: {} of {} evaluations answered ({}), pawn table {} of {} lookups ({})",
+                    evalHits - reportedEvalHits, newEvalProbes, percent(evalHits - reportedEvalHits, newEvalProbes),
+                    pawnHits - reportedPawnHits, newPawnProbes, percent(pawnHits - reportedPawnHits, newPawnProbes));
         }
-        return whiteScore - blackScore;
+        reportedEvalProbes = evalProbes;
+        reportedEvalHits = evalHits;
+        reportedPawnProbes = pawnProbes;
+        reportedPawnHits = pawnHits;
     }
 
-    private int getPieceValue(Piece p) {
-        if (p instanceof Pawn)
-            return VAL_PAWN;
-        if (p instanceof Knight)
-            return VAL_KNIGHT;
-        if (p instanceof Bishop)
-            return VAL_BISHOP;
-        if (p instanceof Rook)
-            return VAL_ROOK;
-        if (p instanceof Queen)
-            return VAL_QUEEN;
-        if (p instanceof King)
-            return VAL_KING;
-        return 0;
+    private static String percent(long part, long whole) {
+        return whole == 0 ? "-" : String.format("%.1f%%", 100.0 * part / whole);
     }
 
-    private int getPositionBonus(Piece p, int r, int c) {
-        // Favors center control (+1 for center squares)
-        if ((r == 3 || r == 4) && (c == 3 || c == 4))
-            return 2;
-        return 0;
+    public Move getBestMove(Board originalBoard, String difficulty, boolean isWhite) {
+        return getBestMove(originalBoard, difficulty, isWhite, null, null);
     }
 
-    // --- Board Manipulation ---
-
-    // Deep clone
-    private Board cloneBoard(Board original) {
-        Board newBoard = new Board(); // Resets to start state
-        // Clear it
-        Spot[][] newBoxes = newBoard.getBoxes();
-        Spot[][] oldBoxes = original.getBoxes();
-
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                Piece oldP = oldBoxes[i][j].getPiece();
-                Piece newP = null;
-                if (oldP != null) {
-                    newP = clonePiece(oldP);
-                }
-                newBoxes[i][j].setPiece(newP);
-            }
-        }
-        // Copy History if needed, or just clear. Since we apply moves, history is not
-        // strictly needed
-        // unless we validte Castling/FirstMove.
-        // We preserve firstMove flag in Pieces, so castling logic should use Piece
-        // state.
-        return newBoard;
+    /**
+     * Picks a move by iterative deepening until the time or node budget runs out. Null limits fall back to the
+     * defaults for the difficulty.
+     */
+    public Move getBestMove(Board originalBoard, String difficulty, boolean isWhite, Long movetimeMs, Long maxNodes) {
+        // Search on a packed copy so the game state is never mutated
+        int move = findMove(Position.fromBoard(originalBoard, isWhite), difficulty, movetimeMs, maxNodes);
+        return move == Moves.NONE ? null : toModelMove(originalBoard, move);
     }
 
-    private Piece clonePiece(Piece p) {
-        Piece newP = null;
-        if (p instanceof Pawn)
-            newP = new Pawn(p.isWhite());
-        else if (p instanceof Rook)
-            newP = new Rook(p.isWhite());
-        else if (p instanceof Knight)
-            newP = new Knight(p.isWhite());
-        else if (p instanceof Bishop)
-            newP = new Bishop(p.isWhite());
-        else if (p instanceof Queen)
-            newP = new Queen(p.isWhite());
-        else if (p instanceof King)
-            newP = new King(p.isWhite());
-
-        if (newP != null)
-            newP.setMoved(p.hasMoved());
-        return newP;
+    /** Same as {@link #getBestMove(Board, String, boolean, Long, Long)} for a position snapshot. */
+    public Move getBestMove(Position root, String difficulty, Long movetimeMs, Long maxNodes) {
+        int move = findMove(root, difficulty, movetimeMs, maxNodes);
+        return move == Moves.NONE ? null : toModelMove(root.toBoard(), move);
     }
 
-    // --- Move Generation ---
-
-    private List<Move> generateLegalMoves(Board board, boolean isWhite) {
-        List<Move> legalMoves = new ArrayList<>();
-        Spot[][] boxes = board.getBoxes();
-
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                Spot start = boxes[i][j];
-                Piece p = start.getPiece();
-                if (p != null && p.isWhite() == isWhite) {
-                    for (int x = 0; x < 8; x++) {
-                        for (int y = 0; y < 8; y++) {
-                            Spot end = boxes[x][y];
-                            if (p.canMove(board, start, end)) {
-                                // Simulate to check king safety
-                                Move move = new Move(start, end, p, end.getPiece(), !p.hasMoved());
-                                applyMove(board, move);
-                                if (!isKingInCheck(board, isWhite)) {
-                                    legalMoves.add(move);
-                                }
-                                undoMove(board, move); // Always revert
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return legalMoves;
+    /** A search that the caller can observe with a listener and stop from another thread; run it with findMove. */
+    public ParallelSearch newSearch() {
+        ParallelSearch search = new ParallelSearch(searchers, helperPool, threads);
+        search.setTablebases(tablebases);
+        return search;
     }
 
-    private void applyMove(Board board, Move move) {
-        Spot start = move.getStart(); // These spots belong to 'board' because move was generated from 'board'
-        Spot end = move.getEnd();
-        Piece p = move.getPieceMoved();
-
-        // Handle En Passant (Custom Logic needed if not in Move)
-        // But for simulation, if Move doesn't store EP flag, we might miss capturing
-        // the pawn.
-        // However, if we just use standard moves for AI, we may ignore EP for now to
-        // simplify,
-        // OR checks if it's Pawn diagonal move to empty square.
-
-        if (p instanceof Pawn && start.getY() != end.getY() && end.getPiece() == null) {
-            // En Passant Capture
-            Spot captureSpot = board.getBox(start.getX(), end.getY());
-            captureSpot.setPiece(null); // Remove captured pawn
-        }
-
-        // Handle Castling
-        // If King moves 2 squares
-        if (p instanceof King && Math.abs(start.getY() - end.getY()) == 2) {
-            int dir = end.getY() - start.getY(); // +2 or -2
-            int rookX = start.getX();
-            int rookY = dir > 0 ? 7 : 0;
-            int rookEndY = start.getY() + (dir > 0 ? 1 : -1);
+    private int findMove(Position root, String difficulty, Long movetimeMs, Long maxNodes) {
+        return findMove(newSearch(), root, difficulty, movetimeMs, maxNodes);
+    }
 
-            Spot rookStart = board.getBox(rookX, rookY);
-            Spot rookEnd = board.getBox(rookX, rookEndY);
-            Piece rook = rookStart.getPiece();
+    /**
+     * Picks a move for {@code root}: from the opening book or the tablebases when they cover the position,
+     * otherwise by running {@code search} (from {@link #newSearch()}) on the calling thread. Returns the packed move, or
+     * {@link Moves#NONE} when there is no legal move.
+     */
+    public int findMove(ParallelSearch search, Position root, String difficulty, Long movetimeMs, Long maxNodes) {
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        int count = rootMoves(root, legalMoves);
+        if (count == 0)
+            return Moves.NONE;
 
-            rookStart.setPiece(null);
-            rookEnd.setPiece(rook);
-            if (rook != null)
-                rook.setMoved(true);
+        if ("EASY".equalsIgnoreCase(difficulty)) {
+            return legalMoves[new Random().nextInt(count)];
         }
 
-        // Apply
-        end.setPiece(p);
-        start.setPiece(null);
-        p.setMoved(true);
-
-        // Promotion (Auto-Queen for AI)
-        if (p instanceof Pawn) {
-            if ((p.isWhite() && end.getX() == 7) || (!p.isWhite() && end.getX() == 0)) {
-                end.setPiece(new Queen(p.isWhite()));
-            }
+        if (book != null) {
+            // Deterministic mode always plays the heaviest book move
+            int bookMove = book.probe(root, legalMoves, count, deterministic ? null : ThreadLocalRandom.current());
+            if (bookMove != Moves.NONE)
+                return bookMove;
         }
-    }
-
-    private void undoMove(Board board, Move move) {
-        Spot start = move.getStart();
-        Spot end = move.getEnd();
-        Piece p = move.getPieceMoved();
-        Piece killed = move.getPieceKilled();
-
-        // Revert main move
-        start.setPiece(p);
-        end.setPiece(killed); // Restore captured piece (usually null, unless capture)
-        p.setMoved(move.isFirstMove() ? false : true); // Ideally track 'wasMoved' in Move or assume heuristic
-        // The isFirstMove flag in Move constructor is helpful!
-        if (move.isFirstMove())
-            p.setMoved(false);
-
-        // Handle En Passant Undo
-        if (p instanceof Pawn && start.getY() != end.getY() && killed == null) {
-            // It was EP, so 'killed' pawn is not on 'end', it's on 'start.x, end.y'
-            // Wait, generateMoves -> Move constructor -> killed is null (because end was
-            // empty)
-            // But we know it's EP. We need to restore the victim.
-            // THIS IS TRICKY: We don't have the victim piece object in 'move'.
-            // For now, AI might glitch on EP undo.
-            // FIX: We can ignore EP undo correctness if we don't support EP in AI or if we
-            // just restore 'a pawn'.
-            Spot epSpot = board.getBox(start.getX(), end.getY());
-            epSpot.setPiece(new Pawn(!p.isWhite()));
-            end.setPiece(null);
+        if (tablebases != null) {
+            int tableMove = tablebases.bestMove(root, legalMoves, count);
+            if (tableMove != Moves.NONE)
+                return tableMove;
         }
 
-        // Handle Castling Undo
-        if (p instanceof King && Math.abs(start.getY() - end.getY()) == 2) {
-            int dir = end.getY() - start.getY();
-            int rookX = start.getX();
-            int rookY = dir > 0 ? 7 : 0;
-            int rookEndY = start.getY() + (dir > 0 ? 1 : -1);
+        int depth = "MEDIUM".equalsIgnoreCase(difficulty) ? MAX_DEPTH_MEDIUM : MAX_DEPTH_HARD;
+        long movetime = movetimeMs == null || movetimeMs <= 0 ? DEFAULT_MOVETIME_MS
+                : Math.min(movetimeMs, MAX_MOVETIME_MS);
+        SearchLimits limits = new SearchLimits(depth, movetime, maxNodes == null ? SearchLimits.NO_LIMIT : maxNodes);
+        return search.search(root, legalMoves, count, limits);
+    }
 
-            Spot rookStart = board.getBox(rookX, rookY);
-            Spot rookEnd = board.getBox(rookX, rookEndY);
-            Piece rook = rookEnd.getPiece();
+    /**
+     * Full-strength search for analysis. It never answers straight from the book or tablebases, and its budget
+     * is the caller's own rather than the /ai-move cap: {@link SearchLimits#NO_LIMIT} for either limit keeps
+     * deepening until {@code search} is stopped.
+     */
+    public int analyze(ParallelSearch search, Position root, long movetimeMs, long maxNodes) {
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        int count = rootMoves(root, legalMoves);
+        if (count == 0)
+            return Moves.NONE;
+        return search.search(root, legalMoves, count, new SearchLimits(MAX_DEPTH_HARD, movetimeMs, maxNodes));
+    }
 
-            rookEnd.setPiece(null);
-            rookStart.setPiece(rook);
-            if (rook != null)
-                rook.setMoved(false);
-        }
+    private static int rootMoves(Position root, int[] moves) {
+        return filterUnderpromotions(moves, new MoveGenerator().generateLegal(root, moves, 0));
     }
 
-    // Check detection (copied/adapted from ChessService)
-    private boolean isKingInCheck(Board board, boolean isWhite) {
-        Spot kingSpot = null;
-        Spot[][] boxes = board.getBoxes();
-        for (Spot[] row : boxes) {
-            for (Spot spot : row) {
-                Piece p = spot.getPiece();
-                if (p instanceof King && p.isWhite() == isWhite) {
-                    kingSpot = spot;
-                    break;
-                }
-            }
+    // A model Move cannot name the promotion piece, so the AI only offers queen promotions
+    private static int filterUnderpromotions(int[] moves, int count) {
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int m = moves[i];
+            if (!Moves.isPromotion(m) || Moves.promotionType(m) == Position.QUEEN)
+                moves[n++] = m;
         }
-        if (kingSpot == null)
-            return false;
+        return n;
+    }
 
-        for (Spot[] row : boxes) {
-            for (Spot spot : row) {
-                Piece p = spot.getPiece();
-                if (p != null && p.isWhite() != isWhite) {
-                    // Critical: canMove checks logic. logic depends on board state.
-                    if (p.canMove(board, spot, kingSpot)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    /** Model move for a packed move, with Spots and pieces taken from {@code board}. */
+    public static Move toModelMove(Board board, int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        Spot start = board.getBox(Position.rowOf(from), Position.columnOf(from));
+        Spot end = board.getBox(Position.rowOf(to), Position.columnOf(to));
+        Piece piece = start.getPiece();
+        return new Move(start, end, piece, end.getPiece(), !piece.hasMoved());
     }
 }
@@ -0,0 +1,696 @@
+package com.chess.service;
+
+import com.chess.engine.Position;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only log of every change to the hosted games, so they survive a restart or a crash.
+ *
+ * Each change is one fixed-size record. Games are spread over shards by id, and each shard appends to its own
+ * memory-mapped segment files under its own lock, so games in different shards never contend. An append is a
+ * 64-byte copy into the page cache. That already survives a crash of the process. Writing the pages to disk is
+ * group-committed on a thread of its own, which waits {@code chess.journal.fsync-interval-ms} after each round
+ * of fsyncs. An OS crash or power loss therefore loses at most that interval plus one round's duration of moves.
+ *
+ * <pre>
+ *  0-15  game id (most then least significant half)
+ * 16-19  sequence number of the record within its game, from 1
+ *    20  type: 1 create, 2 move, 3 undo, 4 reset, 5 delete
+ * 22-23  packed move (see com.chess.engine.Moves), move records only
+ * 24-55  create records: starting board, one nibble per square, a1 first, low nibble first;
+ *        0 = empty, else 1 + color * 6 + type
+ *    56  create records: bit 0 black to move, bits 1-4 castling rights (K, Q, k, q), bit 5 standard start
+ *    57  create records: en-passant square + 1, 0 for none
+ * 60-63  CRC32C of bytes 0-59
+ * </pre>
+ *
+ * A segment ends at the first record whose checksum does not match: the zeroed space after the last append,
+ * or a record torn by a crash.
+ *
+ * Each shard's next segment is created, zero-filled and mapped on a background thread while the current one
+ * fills, and the full segment is forced there too, so the append that crosses a segment boundary only swaps
+ * buffers. A prepared segment that was never written to replays as empty.
+ *
+ * Snapshots keep replay short. Every {@code chess.journal.snapshot-interval-ms}, each shard rolls to a new
+ * segment and writes every live game to a snapshot file: its start position, its moves and its last sequence
+ * number. Older segments are then deleted. Replay loads the snapshot and applies the newer records, skipping
+ * any a game's snapshot already holds. The games are captured one at a time, so a record can land on either
+ * side of the snapshot, and the sequence numbers sort that out.
+ */
+@Component
+public class GameJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(GameJournal.class);
+    static final int RECORD_BYTES = 64;
+    static final int CREATE = 1;
+    static final int MOVE = 2;
+    static final int UNDO = 3;
+    static final int RESET = 4;
+    static final int DELETE = 5;
+
+    private static final int CHECKSUM_OFFSET = RECORD_BYTES - 4;
+    private static final int STANDARD_START = 1 << 5;
+    private static final int SNAPSHOT_MAGIC = 0x43484A53; // "CHJS"
+    private static final int SNAPSHOT_FORMAT = 1;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("shard-(\\d+)-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+    private static final String CASTLING_LETTERS = "KQkq";
+    private static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+
+    // Null when the journal is disabled
+    private final Path dir;
+    private final int segmentBytes;
+    private Shard[] shards;
+    private volatile boolean started;
+    // Prepares the shards' next segments; null when the journal is disabled
+    private final ExecutorService preparer;
+    // Runs the group commit, apart from the shared Spring scheduler so other tasks cannot delay it; null when
+    // the journal is disabled
+    private final ScheduledExecutorService flusher;
+
+    /** Journal that records nothing, for tests and tools. */
+    public static GameJournal disabled() {
+        return new GameJournal(null, 1, 1, 1);
+    }
+
+    /**
+     * @param dir             directory for the segments and snapshots; empty disables the journal
+     * @param shards          shard count for a new journal; an existing journal keeps the count it was written with
+     * @param segmentMb       size of each segment file, written out in full when the segment is created
+     * @param fsyncIntervalMs pause between the group commit's rounds of fsyncs
+     */
+    @Autowired
+    public GameJournal(@Value("${chess.journal.dir:}") String dir, @Value("${chess.journal.shards:4}") int shards,
+            @Value("${chess.journal.segment-mb:16}") int segmentMb,
+            @Value("${chess.journal.fsync-interval-ms:20}") long fsyncIntervalMs) {
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir);
+        long bytes = Math.max(1, segmentMb) * 1024L * 1024L;
+        this.segmentBytes = (int) Math.min(bytes - bytes % RECORD_BYTES, Integer.MAX_VALUE - RECORD_BYTES + 1);
+        this.shards = newShards(Math.max(1, shards));
+        this.preparer = this.dir == null ? null : Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "chess-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher = this.dir == null ? null : Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chess-journal-fsync");
+            t.setDaemon(true);
+            return t;
+        });
+        if (flusher != null)
+            flusher.scheduleWithFixedDelay(this::flushQuietly, fsyncIntervalMs, Math.max(1, fsyncIntervalMs),
+                    TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    // --- Recording; callers hold the game's lock, so a game's records are written in order ---
+
+    /** A new game from {@code start}, or from the standard start when it is null. */
+    void created(GameSession game, Position start) {
+        if (isEnabled())
+            append(game, CREATE, 0, start);
+    }
+
+    void moved(GameSession game, int move) {
+        if (isEnabled())
+            append(game, MOVE, move, null);
+    }
+
+    void undone(GameSession game) {
+        if (isEnabled())
+            append(game, UNDO, 0, null);
+    }
+
+    void reset(GameSession game) {
+        if (isEnabled())
+            append(game, RESET, 0, null);
+    }
+
+    void deleted(GameSession game) {
+        if (isEnabled())
+            append(game, DELETE, 0, null);
+    }
+
+    private void append(GameSession game, int type, int move, Position start) {
+        if (!started)
+            throw new IllegalStateException("The game journal must be recovered before it records changes");
+        byte[] record = encode(game.getId(), game.nextJournalSequence(), type, move, start);
+        Shard shard = shards[shardOf(game.getId())];
+        shard.lock.lock();
+        try {
+            if (shard.position == segmentBytes)
+                roll(shard);
+            shard.buffer.put(shard.position, record);
+            shard.position += RECORD_BYTES;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    static byte[] encode(UUID id, int sequence, int type, int move, Position start) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        record.putLong(0, id.getMostSignificantBits());
+        record.putLong(8, id.getLeastSignificantBits());
+        record.putInt(16, sequence);
+        record.put(20, (byte) type);
+        record.putShort(22, (short) move);
+        if (type == CREATE) {
+            if (start == null) {
+                record.put(56, (byte) STANDARD_START);
+            } else {
+                for (int sq = 0; sq < 64; sq++) {
+                    int piece = start.pieceAt(sq);
+                    if (piece != Position.EMPTY)
+                        record.put(24 + sq / 2, (byte) (record.get(24 + sq / 2) | (piece + 1) << (sq % 2 * 4)));
+                }
+                record.put(56, (byte) ((start.isWhiteToMove() ? 0 : 1) | start.castlingRights() << 1));
+                if (start.enPassantSquare() != Position.NO_SQUARE)
+                    record.put(57, (byte) (start.enPassantSquare() + 1));
+            }
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 0, CHECKSUM_OFFSET);
+        record.putInt(CHECKSUM_OFFSET, (int) crc.getValue());
+        return record.array();
+    }
+
+    // FEN of a create record's starting position, null for the standard start
+    static String startFen(ByteBuffer record) {
+        int flags = record.get(56);
+        if ((flags & STANDARD_START) != 0)
+            return null;
+        StringBuilder fen = new StringBuilder(90);
+        for (int x = 7; x >= 0; x--) {
+            int empty = 0;
+            for (int y = 0; y < 8; y++) {
+                int sq = Position.square(x, y);
+                int code = (record.get(24 + sq / 2) >> (sq % 2 * 4)) & 15;
+                if (code == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0)
+                    fen.append(empty);
+                empty = 0;
+                fen.append(PIECE_LETTERS.charAt(code - 1));
+            }
+            if (empty > 0)
+                fen.append(empty);
+            if (x > 0)
+                fen.append('/');
+        }
+        fen.append((flags & 1) == 0 ? " w " : " b ");
+        int rights = flags >> 1 & 15;
+        for (int i = 0; i < 4; i++) {
+            if ((rights & 1 << i) != 0)
+                fen.append(CASTLING_LETTERS.charAt(i));
+        }
+        if (rights == 0)
+            fen.append('-');
+        int enPassant = record.get(57);
+        fen.append(' ').append(enPassant == 0 ? "-" : Position.squareName(enPassant - 1));
+        return fen.append(" 0 1").toString();
+    }
+
+    private int shardOf(UUID id) {
+        return Math.floorMod(id.hashCode(), shards.length);
+    }
+
+    // --- Group commit ---
+
+    // A failed round must not cancel the schedule; the next one retries from the same point
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Journal fsync failed", e);
+        }
+    }
+
+    /** Writes every appended record to disk; runs on the flusher thread, and once more at shutdown. */
+    public void flush() {
+        if (!started)
+            return;
+        for (Shard shard : shards) {
+            MappedByteBuffer buffer;
+            int from;
+            int to;
+            shard.lock.lock();
+            try {
+                buffer = shard.buffer;
+                from = shard.forced;
+                to = shard.position;
+            } finally {
+                shard.lock.unlock();
+            }
+            if (to == from)
+                continue;
+            // Forced outside the lock, so appends to this shard carry on during the fsync
+            buffer.force(from, to - from);
+            shard.lock.lock();
+            try {
+                if (shard.buffer == buffer)
+                    shard.forced = Math.max(shard.forced, to);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        started = false;
+        if (preparer != null)
+            preparer.shutdown();
+    }
+
+    // --- Segments ---
+
+    // Switches a shard to its prepared next segment and starts preparing the one after; the caller holds the
+    // shard's lock
+    private void roll(Shard shard) {
+        MappedByteBuffer full = shard.buffer;
+        long next = shard.segment + 1;
+        MappedByteBuffer buffer = shard.next == null ? createSegment(shard.index, next) : takeNext(shard, next);
+        shard.buffer = buffer;
+        shard.segment = next;
+        shard.position = 0;
+        shard.forced = 0;
+        shard.next = preparer.submit(() -> {
+            if (full != null)
+                full.force();
+            return createSegment(shard.index, next + 1);
+        });
+    }
+
+    // Only waits when a whole segment filled up faster than the next one could be written out
+    private MappedByteBuffer takeNext(Shard shard, long next) {
+        try {
+            return shard.next.get();
+        } catch (ExecutionException e) {
+            // Tried again here, so the failure reaches the change being recorded
+            return createSegment(shard.index, next);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while starting a journal segment", e);
+        } finally {
+            shard.next = null;
+        }
+    }
+
+    private MappedByteBuffer createSegment(int shard, long segment) {
+        Path file = dir.resolve(segmentName(shard, segment));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // Allocate the blocks now: a full disk then fails here, not later as a fault on a mapped write
+            ByteBuffer zeros = ByteBuffer.allocate(1 << 20);
+            for (long written = 0; written < segmentBytes; ) {
+                zeros.clear().limit((int) Math.min(zeros.capacity(), segmentBytes - written));
+                written += channel.write(zeros, written);
+            }
+            channel.force(true);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // The retry reports the original failure
+            }
+            throw new UncheckedIOException("Cannot start journal segment " + file, e);
+        }
+        syncDirectory();
+        return buffer;
+    }
+
+    /** Waits until every shard's next segment is ready, for tests. */
+    void awaitNextSegments() throws ExecutionException, InterruptedException {
+        for (Shard shard : shards) {
+            Future<MappedByteBuffer> next;
+            shard.lock.lock();
+            try {
+                next = shard.next;
+            } finally {
+                shard.lock.unlock();
+            }
+            if (next != null)
+                next.get();
+        }
+    }
+
+    private static String segmentName(int shard, long segment) {
+        return String.format("shard-%02d-%08d.log", shard, segment);
+    }
+
+    private static String snapshotName(int shard) {
+        return String.format("snapshot-%02d.bin", shard);
+    }
+
+    // Makes created, renamed and deleted files durable; not every platform can open a directory for this
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    private static Shard[] newShards(int count) {
+        Shard[] shards = new Shard[count];
+        for (int i = 0; i < count; i++)
+            shards[i] = new Shard(i);
+        return shards;
+    }
+
+    // --- Snapshots ---
+
+    /**
+     * Writes every journaled game in {@code games} to the shards' snapshot files and deletes the segments the
+     * snapshots replace. Each game is locked only while it is copied.
+     */
+    public void snapshot(Collection<GameSession> games) {
+        if (!started)
+            return;
+        for (Shard shard : shards) {
+            long first;
+            shard.lock.lock();
+            try {
+                roll(shard);
+                first = shard.segment;
+            } finally {
+                shard.lock.unlock();
+            }
+            List<ReplayedGame> copies = new ArrayList<>();
+            for (GameSession game : games) {
+                if (shardOf(game.getId()) != shard.index)
+                    continue;
+                ReplayedGame copy = game.inspect(() -> new ReplayedGame(game.getId(), game.getJournalSequence(),
+                        game.getStartFen(), game.getPlies()));
+                if (copy.sequence > 0)
+                    copies.add(copy);
+            }
+            try {
+                writeSnapshot(shard.index, first, copies);
+                for (Map.Entry<Long, Path> segment : segments(shard.index).entrySet()) {
+                    if (segment.getKey() < first)
+                        Files.deleteIfExists(segment.getValue());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write journal snapshot for shard " + shard.index, e);
+            }
+        }
+        syncDirectory();
+    }
+
+    private void writeSnapshot(int shard, long firstSegment, List<ReplayedGame> games) throws IOException {
+        Path file = dir.resolve(snapshotName(shard));
+        Path temp = dir.resolve(snapshotName(shard) + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (OutputStream raw = Files.newOutputStream(temp);
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new CheckedOutputStream(raw, crc), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_FORMAT);
+            out.writeLong(firstSegment);
+            out.writeInt(games.size());
+            for (ReplayedGame game : games) {
+                out.writeLong(game.id.getMostSignificantBits());
+                out.writeLong(game.id.getLeastSignificantBits());
+                out.writeInt(game.sequence);
+                out.writeUTF(game.startFen == null ? "" : game.startFen);
+                out.writeInt(game.plyCount);
+                for (int i = 0; i < game.plyCount; i++)
+                    out.writeShort(game.plies[i]);
+            }
+            out.flush();
+            new DataOutputStream(raw).writeInt((int) crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Returns the first segment still to replay
+    private long readSnapshot(Path file, Map<UUID, ReplayedGame> games) throws IOException {
+        CRC32C crc = new CRC32C();
+        long firstSegment;
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(raw, crc));
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_FORMAT)
+                throw new IOException("Not a journal snapshot: " + file);
+            firstSegment = in.readLong();
+            int count = in.readInt();
+            for (int g = 0; g < count; g++) {
+                UUID id = new UUID(in.readLong(), in.readLong());
+                int sequence = in.readInt();
+                String fen = in.readUTF();
+                int[] plies = new int[in.readInt()];
+                for (int i = 0; i < plies.length; i++)
+                    plies[i] = in.readUnsignedShort();
+                games.put(id, new ReplayedGame(id, sequence, fen.isEmpty() ? null : fen, plies));
+            }
+            int expected = (int) crc.getValue();
+            if (new DataInputStream(raw).readInt() != expected)
+                throw new IOException("Journal snapshot is corrupt: " + file);
+        }
+        return firstSegment;
+    }
+
+    // --- Recovery ---
+
+    /**
+     * Rebuilds every journaled game from the snapshots and segments on disk and hands each one to
+     * {@code restore}, then starts new segments for further appends. Must run once, before anything is recorded.
+     *
+     * @throws UncheckedIOException if the journal cannot be read; a damaged snapshot stops startup rather than
+     *                              silently dropping games
+     */
+    void recover(Consumer<ReplayedGame> restore) {
+        if (!isEnabled() || started)
+            return;
+        try {
+            Files.createDirectories(dir);
+            int existing = existingShards();
+            if (existing > 0 && existing != shards.length) {
+                log.info("Game journal in {} has {} shard(s); keeping that count", dir, existing);
+                shards = newShards(existing);
+            }
+            long start = System.currentTimeMillis();
+            Map<UUID, ReplayedGame> games = new HashMap<>();
+            long records = 0;
+            for (Shard shard : shards) {
+                Path snapshot = dir.resolve(snapshotName(shard.index));
+                long first = Files.exists(snapshot) ? readSnapshot(snapshot, games) : 0;
+                for (Map.Entry<Long, Path> segment : segments(shard.index).entrySet()) {
+                    shard.segment = Math.max(shard.segment, segment.getKey());
+                    if (segment.getKey() >= first)
+                        records += replaySegment(segment.getValue(), games);
+                }
+                shard.segment = Math.max(shard.segment, first - 1);
+            }
+            for (ReplayedGame game : games.values())
+                restore.accept(game);
+            for (Shard shard : shards)
+                roll(shard);
+            started = true;
+            log.info("Game journal {}: {} game(s) recovered from {} record(s) in {} ms", dir, games.size(), records,
+                    System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover the game journal in " + dir, e);
+        }
+    }
+
+    private long replaySegment(Path file, Map<UUID, ReplayedGame> games) throws IOException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] bytes = new byte[RECORD_BYTES];
+            ByteBuffer record = ByteBuffer.wrap(bytes);
+            CRC32C crc = new CRC32C();
+            for (int offset = 0; offset + RECORD_BYTES <= segment.capacity(); offset += RECORD_BYTES) {
+                segment.get(offset, bytes);
+                crc.reset();
+                crc.update(bytes, 0, CHECKSUM_OFFSET);
+                if (record.get(20) == 0 || record.getInt(CHECKSUM_OFFSET) != (int) crc.getValue())
+                    break;
+                apply(record, games);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void apply(ByteBuffer record, Map<UUID, ReplayedGame> games) {
+        UUID id = new UUID(record.getLong(0), record.getLong(8));
+        int sequence = record.getInt(16);
+        int type = record.get(20);
+        ReplayedGame game = games.get(id);
+        if (game != null && sequence <= game.sequence)
+            return; // Already in the snapshot
+        if (type == CREATE) {
+            games.put(id, new ReplayedGame(id, sequence, startFen(record), new int[0]));
+            return;
+        }
+        if (game == null) {
+            if (!GameRegistry.DEFAULT_GAME_ID.equals(id))
+                return; // A game deleted before the snapshot
+            // The default game exists without being created
+            game = new ReplayedGame(id, 0, null, new int[0]);
+            games.put(id, game);
+        }
+        game.sequence = sequence;
+        switch (type) {
+            case MOVE -> game.addPly(record.getShort(22) & 0xFFFF);
+            case UNDO -> game.plyCount = Math.max(0, game.plyCount - 1);
+            case RESET -> {
+                game.startFen = null;
+                game.plyCount = 0;
+            }
+            case DELETE -> games.remove(id);
+            default -> {
+            }
+        }
+    }
+
+    private int existingShards() throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher segment = SEGMENT_NAME.matcher(name);
+                Matcher snapshot = SNAPSHOT_NAME.matcher(name);
+                if (segment.matches())
+                    count = Math.max(count, Integer.parseInt(segment.group(1)) + 1);
+                else if (snapshot.matches())
+                    count = Math.max(count, Integer.parseInt(snapshot.group(1)) + 1);
+            }
+        }
+        return count;
+    }
+
+    // Segment files of one shard by segment number, oldest first
+    private Map<Long, Path> segments(int shard) throws IOException {
+        Map<Long, Path> segments = new java.util.TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "shard-*.log")) {
+            for (Path file : files) {
+                Matcher m = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (m.matches() && Integer.parseInt(m.group(1)) == shard)
+                    segments.put(Long.parseLong(m.group(2)), file);
+            }
+        }
+        return segments;
+    }
+
+    /** One shard's open segment. */
+    private static final class Shard {
+        final int index;
+        final ReentrantLock lock = new ReentrantLock();
+        // Number of the segment being written, and the next offset in it
+        long segment = -1;
+        MappedByteBuffer buffer;
+        int position;
+        // Bytes of the segment known to be on disk
+        int forced;
+        // Segment after this one, being prepared in the background; null until the first roll
+        Future<MappedByteBuffer> next;
+
+        Shard(int index) {
+            this.index = index;
+        }
+    }
+
+    /** A game as rebuilt from the journal: where it started and the moves since. */
+    static final class ReplayedGame {
+        final UUID id;
+        int sequence;
+        String startFen;
+        int[] plies;
+        int plyCount;
+
+        ReplayedGame(UUID id, int sequence, String startFen, int[] plies) {
+            this.id = id;
+            this.sequence = sequence;
+            this.startFen = startFen;
+            this.plies = plies;
+            this.plyCount = plies.length;
+        }
+
+        void addPly(int move) {
+            if (plyCount == plies.length)
+                plies = Arrays.copyOf(plies, Math.max(16, plyCount * 2));
+            plies[plyCount++] = move;
+        }
+
+        UUID getId() {
+            return id;
+        }
+
+        int getSequence() {
+            return sequence;
+        }
+
+        /** Null for the standard start. */
+        String getStartFen() {
+            return startFen;
+        }
+
+        int[] getPlies() {
+            return Arrays.copyOf(plies, plyCount);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.chess.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+/** The game id is unknown, or the game was evicted after sitting idle. */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class GameNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public GameNotFoundException(UUID gameId) {
+        super("No such game: " + gameId);
+    }
+}
@@ -0,0 +1,197 @@
+package com.chess.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * All games hosted by this node, keyed by id. Lookups are lock-free; each {@link GameSession} carries its own
+ * lock. Games idle for longer than the TTL are swept periodically, and when the registry is full the least
+ * recently used game makes room for a new one. A game's AI searches are cancelled when it is removed, and the
+ * removal is written to the {@link GameJournal} so the game stays gone after a restart.
+ *
+ * A new game reserves its slot with a compare-and-set on the game count, so concurrent creates never go past
+ * the limit. Eviction order comes from a queue of games in creation order: a game used since it was queued gets
+ * a second chance at the back, so picking a victim does not scan the registry and lookups stay lock-free.
+ *
+ * The default game (the all-zero id) backs the original single-game endpoints, is never evicted and does not
+ * count against the limit.
+ */
+@Component
+public class GameRegistry {
+
+    public static final UUID DEFAULT_GAME_ID = new UUID(0, 0);
+
+    private final Map<UUID, GameSession> games = new ConcurrentHashMap<>();
+    // Hosted games other than the default one, including slots reserved by creates in progress
+    private final AtomicInteger hosted = new AtomicInteger();
+    // Every hosted game once, plus entries of removed games until a sweep or an eviction reaches them
+    private final Queue<Queued> evictionOrder = new ConcurrentLinkedQueue<>();
+    private final int maxGames;
+    private final long idleTtlNanos;
+    private final GameJournal journal;
+
+    /** Registry whose games are not journaled, for tests and tools. */
+    public GameRegistry(int maxGames, long idleTtlMinutes) {
+        this(maxGames, idleTtlMinutes, GameJournal.disabled());
+    }
+
+    @Autowired
+    public GameRegistry(@Value("${chess.games.max:20000}") int maxGames,
+            @Value("${chess.games.idle-ttl-minutes:60}") long idleTtlMinutes, GameJournal journal) {
+        this.maxGames = Math.max(1, maxGames);
+        this.idleTtlNanos = TimeUnit.MINUTES.toNanos(Math.max(1, idleTtlMinutes));
+        this.journal = journal;
+    }
+
+    public GameSession create() {
+        while (true) {
+            int n = hosted.get();
+            if (n < maxGames) {
+                if (hosted.compareAndSet(n, n + 1))
+                    break;
+            } else {
+                evictLeastRecentlyUsed();
+            }
+        }
+        return add(new GameSession(UUID.randomUUID()));
+    }
+
+    /**
+     * @throws GameNotFoundException if there is no game with this id
+     */
+    public GameSession get(UUID gameId) {
+        if (DEFAULT_GAME_ID.equals(gameId))
+            return getDefault();
+        GameSession session = games.get(gameId);
+        if (session == null)
+            throw new GameNotFoundException(gameId);
+        return session;
+    }
+
+    public GameSession getDefault() {
+        return games.computeIfAbsent(DEFAULT_GAME_ID, GameSession::new);
+    }
+
+    /** The game with this id, created empty if it does not exist; for rebuilding games from the journal. */
+    GameSession restore(UUID gameId) {
+        if (DEFAULT_GAME_ID.equals(gameId))
+            return getDefault();
+        GameSession session = games.get(gameId);
+        if (session != null)
+            return session;
+        // Recovery runs before any request, so the limit is not enforced here
+        hosted.incrementAndGet();
+        return add(new GameSession(gameId));
+    }
+
+    private GameSession add(GameSession session) {
+        games.put(session.getId(), session);
+        evictionOrder.add(new Queued(session));
+        return session;
+    }
+
+    public boolean contains(UUID gameId) {
+        return DEFAULT_GAME_ID.equals(gameId) || games.containsKey(gameId);
+    }
+
+    public boolean remove(UUID gameId) {
+        if (DEFAULT_GAME_ID.equals(gameId))
+            return false;
+        GameSession session = games.get(gameId);
+        if (session == null)
+            return false;
+        // Journaled first: if that fails, the game is still here rather than back after a restart
+        session.locked(() -> {
+            journal.deleted(session);
+            return null;
+        });
+        if (!games.remove(gameId, session))
+            return false;
+        hosted.decrementAndGet();
+        session.cancelJobs();
+        return true;
+    }
+
+    Collection<GameSession> sessions() {
+        return games.values();
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    @Scheduled(fixedDelayString = "${chess.games.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (GameSession s : games.values()) {
+            if (!DEFAULT_GAME_ID.equals(s.getId()) && now - s.getLastAccessNanos() > idleTtlNanos
+                    && games.remove(s.getId(), s))
+                evicted(s);
+        }
+        evictionOrder.removeIf(q -> !q.isHosted());
+    }
+
+    /** Snapshots every game into the journal, so a restart replays only what changed since. */
+    @Scheduled(fixedDelayString = "${chess.journal.snapshot-interval-ms:600000}",
+            initialDelayString = "${chess.journal.snapshot-interval-ms:600000}")
+    public void snapshotJournal() {
+        journal.snapshot(games.values());
+    }
+
+    /**
+     * Evicts the game at the head of the queue unless it was used after being queued, in which case it goes to the
+     * back with its new access time. After a full round of second chances the head goes regardless, so a registry
+     * whose every game is busy still makes room.
+     */
+    private void evictLeastRecentlyUsed() {
+        int secondChances = 0;
+        for (Queued head = evictionOrder.poll(); head != null; head = evictionOrder.poll()) {
+            if (!head.isHosted())
+                continue; // Removed since it was queued
+            long lastAccess = head.session.getLastAccessNanos();
+            if (lastAccess != head.lastAccessNanos && secondChances++ < maxGames) {
+                evictionOrder.add(new Queued(head.session));
+                continue;
+            }
+            if (games.remove(head.session.getId(), head.session)) {
+                evicted(head.session);
+                return;
+            }
+        }
+    }
+
+    private void evicted(GameSession session) {
+        hosted.decrementAndGet();
+        session.cancelJobs();
+        session.inspect(() -> {
+            journal.deleted(session);
+            return null;
+        });
+    }
+
+    /** A game in the eviction queue, with its access time when it was queued. */
+    private final class Queued {
+        final GameSession session;
+        final long lastAccessNanos;
+
+        Queued(GameSession session) {
+            this.session = session;
+            this.lastAccessNanos = session.getLastAccessNanos();
+        }
+
+        boolean isHosted() {
+            return games.get(session.getId()) == session;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.chess.service;
+
+import com.chess.engine.Moves;
+import com.chess.engine.Position;
+import com.chess.engine.San;
+import com.chess.model.Board;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * One game hosted by the server: its board, whose turn it is, and the {@link GameStatus} of the current
+ * position. Every read or write goes through {@link #locked}, so moves in the same game are serialized while
+ * different games never contend.
+ */
+public class GameSession {
+
+    private final UUID id;
+    private final Board board = new Board();
+    private boolean whiteTurn = true;
+    // Bumped on every change to the board, so derived data can be cached per position
+    private long version;
+    private GameStatus status;
+    // FEN the game started from, null for the standard start; with the plies it rebuilds the game from the journal
+    private String startFen;
+    // Moves played since the start, packed as in com.chess.engine.Moves, promotion piece included
+    private int[] plies = new int[16];
+    private int plyCount;
+    // SAN of the first sanCount plies, rendered when first asked for; sanCursor is the position after them
+    private String[] san = new String[0];
+    private int sanCount;
+    private Position sanCursor;
+    // The cursor's undo ring only reaches back this far; a takeback below it replays from the start
+    private int sanFloor;
+    // Records this game has written to the GameJournal, so replay can tell which ones a snapshot already holds
+    private int journalSequence;
+    // AI searches of this game still queued or running
+    private final Set<AiJob> jobs = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock lock = new ReentrantLock();
+    // Read by the registry's eviction sweep without taking the lock
+    private volatile long lastAccessNanos = System.nanoTime();
+
+    public GameSession(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    /** Runs {@code action} while holding this game's lock. */
+    public <T> T locked(Supplier<T> action) {
+        lock.lock();
+        try {
+            lastAccessNanos = System.nanoTime();
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Same as {@link #locked}, but does not count as a use of the game, so it cannot keep an idle game alive. */
+    <T> T inspect(Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The accessors below are only meaningful inside locked()
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public boolean isWhiteTurn() {
+        return whiteTurn;
+    }
+
+    public void setWhiteTurn(boolean whiteTurn) {
+        this.whiteTurn = whiteTurn;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Must be called after every change to the board or turn: starts a new version, refreshes the status and
+     * cancels searches of the old position.
+     */
+    public void positionChanged() {
+        cancelJobs();
+        version++;
+        status = GameStatus.compute(board, whiteTurn, version);
+    }
+
+    public GameStatus getStatus() {
+        if (status == null)
+            status = GameStatus.compute(board, whiteTurn, version);
+        return status;
+    }
+
+    public String getStartFen() {
+        return startFen;
+    }
+
+    public void setStartFen(String startFen) {
+        this.startFen = startFen;
+        forgetSan(0);
+    }
+
+    public int getPlyCount() {
+        return plyCount;
+    }
+
+    /** Copy of the packed moves played since the start. */
+    public int[] getPlies() {
+        return Arrays.copyOf(plies, plyCount);
+    }
+
+    void addPly(int move) {
+        if (plyCount == plies.length)
+            plies = Arrays.copyOf(plies, plyCount * 2);
+        plies[plyCount++] = move;
+    }
+
+    void removeLastPly() {
+        if (plyCount > 0)
+            plyCount--;
+        forgetSan(plyCount);
+    }
+
+    void clearPlies() {
+        plyCount = 0;
+        forgetSan(0);
+    }
+
+    /**
+     * The moves from ply {@code from} on (clamped to the ply count), in SAN or UCI. UCI comes straight from the
+     * packed moves; SAN needs the position before each move, so each ply is rendered once and kept until it is
+     * taken back.
+     */
+    List<String> history(int from, boolean uci) {
+        from = Math.min(from, plyCount);
+        String[] moves = new String[plyCount - from];
+        if (uci) {
+            for (int i = from; i < plyCount; i++)
+                moves[i - from] = Moves.toUci(plies[i]);
+            return List.of(moves);
+        }
+        if (sanCursor == null)
+            sanCursor = Position.fromFen(startFen == null ? Position.START_FEN : startFen);
+        if (san.length < plyCount)
+            san = Arrays.copyOf(san, plies.length);
+        for (; sanCount < plyCount; sanCount++) {
+            san[sanCount] = San.toSan(sanCursor, plies[sanCount]);
+            sanCursor.makeMove(plies[sanCount]);
+            sanFloor = Math.max(sanFloor, sanCount + 1 - Position.UNDO_CAPACITY);
+        }
+        System.arraycopy(san, from, moves, 0, moves.length);
+        return List.of(moves);
+    }
+
+    // Drops the rendered plies past keep. A takeback steps the cursor back one move; the removed move is still in
+    // plies, just past plyCount
+    private void forgetSan(int keep) {
+        if (keep < sanFloor || keep == 0) {
+            sanCount = 0;
+            sanCursor = null;
+            sanFloor = 0;
+        }
+        for (; sanCount > keep; sanCount--)
+            sanCursor.unmakeMove(plies[sanCount - 1]);
+    }
+
+    /** Sequence number for this game's next journal record. */
+    int nextJournalSequence() {
+        return ++journalSequence;
+    }
+
+    int getJournalSequence() {
+        return journalSequence;
+    }
+
+    void setJournalSequence(int journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    /** Tracks {@code job} until it finishes, so a change to the position can cancel it. */
+    void attachJob(AiJob job) {
+        jobs.add(job);
+        job.getResult().whenComplete((move, e) -> jobs.remove(job));
+    }
+
+    /** Cancels every search of this game; safe without the lock. */
+    void cancelJobs() {
+        for (AiJob job : jobs)
+            job.cancel();
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+}
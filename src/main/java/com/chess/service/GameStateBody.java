@@ -0,0 +1,25 @@
+package com.chess.service;
+
+/**
+ * A game state already serialized for one version of the position, with that version's ETag. Both come from the
+ * same moment under the game's lock, so the tag always describes the body.
+ */
+public final class GameStateBody {
+
+    private final String eTag;
+    private final byte[] body;
+
+    GameStateBody(String eTag, byte[] body) {
+        this.eTag = eTag;
+        this.body = body;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    /** The serialized bytes; shared by every reply for this version, so they must not be modified. */
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,149 @@
+package com.chess.service;
+
+import com.chess.dto.LegalMoves;
+import com.chess.engine.MoveGenerator;
+import com.chess.engine.Moves;
+import com.chess.engine.Position;
+import com.chess.model.Board;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Everything derived from one version of a game's position: its FEN, check, mate, stalemate and the legal
+ * moves, also kept as from/to bitmasks. It is computed once when the position changes, so reads only copy fields.
+ * Replies built from it are cached here too, and go away with it.
+ */
+public final class GameStatus {
+
+    // Versions restart when the server does, so the ETag also names the run that produced it
+    private static final String RUN = Long.toString(System.currentTimeMillis(), 36);
+    // Enough for the windows that clients polling one game ask for; a client cycling through them is not cached
+    private static final int MAX_BODIES = 4;
+
+    private final long version;
+    private final String fen;
+    private final boolean inCheck;
+    private final int[] legalMoves;
+    // Squares with at least one legal move, and the destinations from each square
+    private final long movable;
+    private final long[] targets = new long[64];
+    // Built on the first request for the whole board's moves, then reused until the next move
+    private LegalMoves legalMovesView;
+    // Serialized game states of this version, keyed by history start and notation
+    private final Map<Integer, GameStateBody> bodies = new HashMap<>();
+
+    private GameStatus(long version, String fen, boolean inCheck, int[] legalMoves) {
+        this.version = version;
+        this.fen = fen;
+        this.inCheck = inCheck;
+        this.legalMoves = legalMoves;
+        long from = 0;
+        for (int move : legalMoves) {
+            from |= 1L << Moves.from(move);
+            targets[Moves.from(move)] |= 1L << Moves.to(move); // Promotion variants share one bit
+        }
+        this.movable = from;
+    }
+
+    static GameStatus compute(Board board, boolean whiteTurn, long version) {
+        Position position = Position.fromBoard(board, whiteTurn);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = new MoveGenerator().generateLegal(position, moves, 0);
+        return new GameStatus(version, position.toFen(), position.isInCheck(), Arrays.copyOf(moves, count));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Entity tag of the game state of this version with its history from {@code historyStart} in SAN or UCI,
+     * quoted as it goes in the ETag header. Each window and notation is a different body, so it gets its own tag.
+     */
+    String eTag(int historyStart, boolean uci) {
+        GameStateBody body = body(historyStart, uci);
+        if (body != null)
+            return body.getETag();
+        return "\"" + RUN + "." + version + "." + historyStart + (uci ? "u" : "") + "\"";
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public boolean isInCheck() {
+        return inCheck;
+    }
+
+    public boolean isCheckmate() {
+        return inCheck && legalMoves.length == 0;
+    }
+
+    public boolean isStalemate() {
+        return !inCheck && legalMoves.length == 0;
+    }
+
+    public int getLegalMoveCount() {
+        return legalMoves.length;
+    }
+
+    /** The legal move between two squares ({@link Moves#NONE} if there is none); promotions match any piece. */
+    public int findMove(int from, int to) {
+        for (int move : legalMoves) {
+            if (Moves.from(move) == from && Moves.to(move) == to)
+                return move;
+        }
+        return Moves.NONE;
+    }
+
+    /** Bitmask of the squares with a legal move (bit {@code x * 8 + y}). */
+    public long getMovable() {
+        return movable;
+    }
+
+    /** Bitmask of the squares the piece on {@code from} can legally move to; 0 for an empty or stuck square. */
+    public long getTargets(int from) {
+        return targets[from];
+    }
+
+    /**
+     * Every legal move as bitmasks. The view is built once per version; callers hold the game's lock, and the
+     * view is never modified afterwards, so it can be serialized after the lock is released.
+     */
+    LegalMoves legalMoves(String gameId) {
+        if (legalMovesView == null) {
+            Map<Integer, String> to = new TreeMap<>();
+            for (long from = movable; from != 0; from &= from - 1) {
+                int square = Long.numberOfTrailingZeros(from);
+                to.put(square, LegalMoves.toHex(targets[square]));
+            }
+            legalMovesView = new LegalMoves(gameId, version, LegalMoves.toHex(movable), to);
+        }
+        return legalMovesView;
+    }
+
+    /** Legal moves of the piece on one square, in the same form. */
+    LegalMoves legalMoves(String gameId, int from) {
+        long bit = movable & (1L << from);
+        Map<Integer, String> to = bit == 0 ? Map.of() : Map.of(from, LegalMoves.toHex(targets[from]));
+        return new LegalMoves(gameId, version, LegalMoves.toHex(bit), to);
+    }
+
+    /** Cached serialized game state, or null; callers hold the game's lock. */
+    GameStateBody body(int historyStart, boolean uci) {
+        return bodies.get(historyStart * 2 + (uci ? 1 : 0));
+    }
+
+    void cacheBody(int historyStart, boolean uci, GameStateBody body) {
+        if (bodies.size() < MAX_BODIES)
+            bodies.put(historyStart * 2 + (uci ? 1 : 0), body);
+    }
+
+    /** Packed legal moves (see {@link Moves}); the caller must not modify the array. */
+    int[] legalMoves() {
+        return legalMoves;
+    }
+}
@@ -0,0 +1,331 @@
+package com.chess.service;
+
+import com.chess.dto.GameUpdate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the changes of hosted games to their WebSocket watchers. Every watched game has a channel. Updates are
+ * queued on it while the game's lock is held, so they leave in the order the changes happened, and a dispatcher
+ * thread writes them out; the request that made the change never waits for the fan-out. Each update is serialized
+ * and UTF-8 encoded once, and the same bytes go to every watcher of the game as a binary frame; a text frame would
+ * be encoded again for each session.
+ *
+ * Messages reach each watcher through its own short queue and asynchronous sends, one in flight at a time, so
+ * the dispatcher never waits for a client and a slow watcher only delays itself. A watcher whose send fails or
+ * times out, or that falls {@link #MAX_PENDING} messages behind, is dropped. The channel of a deleted or evicted
+ * game closes its watchers, and a channel whose last watcher leaves is removed.
+ */
+@Service
+public class GameUpdateService {
+
+    private static final CloseStatus GAME_GONE = CloseStatus.GOING_AWAY.withReason("Game removed");
+    // A watcher this far behind would rather reconnect and start from a fresh state
+    static final int MAX_PENDING = 64;
+
+    private final ObjectMapper objectMapper;
+    private final GameRegistry games;
+    // Null when disabled
+    private final ExecutorService dispatcher;
+    private final Map<UUID, Channel> channels = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GameUpdateService(ObjectMapper objectMapper, GameRegistry games,
+            @Value("${chess.updates.threads:2}") int threads) {
+        this(objectMapper, games, newDispatcher(threads));
+    }
+
+    private GameUpdateService(ObjectMapper objectMapper, GameRegistry games, ExecutorService dispatcher) {
+        this.objectMapper = objectMapper;
+        this.games = games;
+        this.dispatcher = dispatcher;
+    }
+
+    /** A service that nobody can watch, so it starts no threads; for services built without Spring. */
+    public static GameUpdateService disabled(GameRegistry games) {
+        return new GameUpdateService(null, games, (ExecutorService) null);
+    }
+
+    private static ExecutorService newDispatcher(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "chess-updates-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Whether anyone watches the game, so updates are worth building; callers hold the game's lock. */
+    boolean isWatched(GameSession game) {
+        Channel channel = channels.get(game.getId());
+        return channel != null && channel.isWatched();
+    }
+
+    /** Sends {@code update} to every watcher of the game; callers hold the game's lock. */
+    void publish(GameSession game, GameUpdate update) {
+        Channel channel = channels.get(game.getId());
+        if (channel != null)
+            channel.enqueue(new Delivery(null, encode(update)));
+    }
+
+    /**
+     * Adds a watcher, which first receives {@code state} and then every later update. Callers hold the game's
+     * lock, so no change can fall between the state and the first delta.
+     */
+    void watch(GameSession game, WebSocketSession session, GameUpdate state) {
+        if (dispatcher == null)
+            throw new IllegalStateException("Game updates are disabled");
+        Delivery joiner = new Delivery(session, encode(state));
+        // Queued inside the map's compute, so an unwatch emptying the same channel cannot discard it concurrently
+        Channel channel = channels.compute(game.getId(), (id, existing) -> {
+            Channel c = existing == null ? new Channel(id) : existing;
+            c.pending.add(joiner);
+            return c;
+        });
+        channel.schedule();
+    }
+
+    void unwatch(UUID gameId, WebSocketSession session) {
+        Channel channel = channels.get(gameId);
+        if (channel != null) {
+            channel.watchers.remove(session.getId());
+            channel.removeIfUnwatched();
+        }
+    }
+
+    /** Closes the game's watchers once the updates already queued have gone out. */
+    void gameRemoved(UUID gameId) {
+        Channel channel = channels.remove(gameId);
+        if (channel != null)
+            channel.enqueue(Delivery.CLOSE);
+    }
+
+    /** Number of sessions watching the game. */
+    public int getWatcherCount(UUID gameId) {
+        Channel channel = channels.get(gameId);
+        return channel == null ? 0 : channel.watchers.size();
+    }
+
+    /** Number of games with a channel, watched or about to be. */
+    int getChannelCount() {
+        return channels.size();
+    }
+
+    // Evicted games leave the registry without a call here
+    @Scheduled(fixedDelayString = "${chess.games.sweep-interval-ms:60000}")
+    public void closeRemovedGames() {
+        for (UUID gameId : channels.keySet()) {
+            if (!games.contains(gameId))
+                gameRemoved(gameId);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (dispatcher != null)
+            dispatcher.shutdown();
+    }
+
+    // UTF-8 once per update; every watcher sends a duplicate view of the same bytes
+    private ByteBuffer encode(GameUpdate update) {
+        try {
+            return ByteBuffer.wrap(objectMapper.writeValueAsBytes(update));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** A message for every watcher, or for one joining watcher; {@link #CLOSE} ends the channel. */
+    private static final class Delivery {
+        static final Delivery CLOSE = new Delivery(null, null);
+
+        final WebSocketSession joiner;
+        final ByteBuffer message;
+
+        Delivery(WebSocketSession joiner, ByteBuffer message) {
+            this.joiner = joiner;
+            this.message = message;
+        }
+    }
+
+    /** The watchers of one game and the deliveries not yet sent, drained by at most one dispatcher thread. */
+    private final class Channel implements Runnable {
+        final UUID gameId;
+        final Map<String, Watcher> watchers = new ConcurrentHashMap<>();
+        private final Queue<Delivery> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Channel(UUID gameId) {
+            this.gameId = gameId;
+        }
+
+        // A joiner is always either pending or watching, since run() only dequeues a delivery once it is handled
+        boolean isWatched() {
+            return !watchers.isEmpty() || !pending.isEmpty();
+        }
+
+        void enqueue(Delivery delivery) {
+            pending.add(delivery);
+            schedule();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; the watchers are about to be disconnected anyway
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                for (Delivery d = pending.peek(); d != null; d = pending.peek()) {
+                    deliver(d);
+                    pending.poll();
+                }
+                scheduled.set(false);
+            } while (!pending.isEmpty() && scheduled.compareAndSet(false, true));
+            removeIfUnwatched();
+        }
+
+        // Runs inside the map's compute, like the joiner being queued in watch(), so the two cannot interleave
+        void removeIfUnwatched() {
+            channels.computeIfPresent(gameId, (id, channel) -> channel == this && !isWatched() ? null : channel);
+        }
+
+        private void deliver(Delivery delivery) {
+            if (delivery == Delivery.CLOSE) {
+                for (Watcher watcher : watchers.values())
+                    closeQuietly(watcher.session, GAME_GONE);
+                watchers.clear();
+            } else if (delivery.joiner != null) {
+                Watcher watcher = new Watcher(this, delivery.joiner);
+                watchers.put(delivery.joiner.getId(), watcher);
+                watcher.send(delivery.message);
+            } else {
+                for (Watcher watcher : watchers.values())
+                    watcher.send(delivery.message);
+            }
+        }
+
+        void drop(Watcher watcher) {
+            watchers.remove(watcher.session.getId(), watcher);
+            removeIfUnwatched();
+            closeQuietly(watcher.session, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    /**
+     * One watcher's messages not yet written. With the container's asynchronous endpoint, {@link #send} only
+     * queues, and each completed send starts the next; other sessions are written to directly.
+     */
+    private static final class Watcher {
+        final Channel channel;
+        final WebSocketSession session;
+        private final RemoteEndpoint.Async remote;
+        // Guarded by this
+        private final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+        private boolean sending;
+
+        Watcher(Channel channel, WebSocketSession session) {
+            this.channel = channel;
+            this.session = session;
+            Session container = session instanceof NativeWebSocketSession n ? n.getNativeSession(Session.class) : null;
+            this.remote = container == null ? null : container.getAsyncRemote();
+        }
+
+        void send(ByteBuffer message) {
+            if (remote == null) {
+                sendNow(message);
+                return;
+            }
+            boolean overflow = false;
+            synchronized (this) {
+                if (!sending)
+                    sending = true;
+                else if (queue.size() < MAX_PENDING) {
+                    queue.add(message);
+                    return;
+                } else {
+                    queue.clear();
+                    overflow = true;
+                }
+            }
+            if (overflow)
+                channel.drop(this);
+            else
+                sendAsync(message);
+        }
+
+        private void sendAsync(ByteBuffer message) {
+            try {
+                remote.sendBinary(message.duplicate(), this::sent);
+            } catch (RuntimeException e) {
+                channel.drop(this);
+            }
+        }
+
+        // Runs on a container thread once the last send completes, fails or times out
+        private void sent(SendResult result) {
+            if (!result.isOK()) {
+                channel.drop(this);
+                return;
+            }
+            ByteBuffer next;
+            synchronized (this) {
+                next = queue.poll();
+                if (next == null) {
+                    sending = false;
+                    return;
+                }
+            }
+            sendAsync(next);
+        }
+
+        private void sendNow(ByteBuffer message) {
+            try {
+                session.sendMessage(new BinaryMessage(message.duplicate()));
+            } catch (IOException | RuntimeException e) {
+                channel.drop(this);
+            }
+        }
+    }
+
+    private static void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException | RuntimeException e) {
+            // Already gone
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.chess.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Every search worker is busy and the queue is full; the client should retry later. */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SearchQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SearchQueueFullException() {
+        super("Search queue is full, try again later");
+    }
+}
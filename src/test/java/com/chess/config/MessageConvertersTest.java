@@ -0,0 +1,91 @@
+package com.chess.config;
+
+import com.chess.dto.GameState;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+public class MessageConvertersTest {
+
+    private static final String FEN = "r3k2r/8/8/3pP3/8/8/8/R3K2R w Kq d6 0 1";
+    private static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+
+    private static GameState state(String message) {
+        GameState state = new GameState();
+        state.setGameId("0b5e2c4a-1f3d-4e6a-9b8c-7d2e1f0a3b4c");
+        state.setFen(FEN);
+        state.setSuccess(true);
+        state.setInCheck(true);
+        state.setMessage(message);
+        return state;
+    }
+
+    @Test
+    public void testBinaryLayout() {
+        GameState state = state("Échec ✓");
+        byte[] bytes = BinaryPositionMessageConverter.encode(state);
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+
+        assertEquals(UUID.fromString(state.getGameId()), new UUID(in.getLong(0), in.getLong(8)));
+        assertEquals(0x04, bytes[16], "a1 is the low nibble: white rook, 1 + 0 * 6 + 3");
+        assertEquals(0x06, bytes[18], "e1 low, f1 high: white king and an empty square");
+        assertEquals((byte) 0xA0, bytes[47], "g8 low, h8 high: empty and a black rook, 1 + 1 * 6 + 3");
+        assertEquals(0x12, bytes[48], "White to move; K (bit 1) and q (bit 4)");
+        assertEquals(43, bytes[49], "d6 is square 5 * 8 + 3");
+        assertEquals(0x03, bytes[50], "Success and check");
+        byte[] message = "Échec ✓".getBytes(StandardCharsets.UTF_8);
+        assertEquals(message.length, in.getShort(51));
+        assertEquals(53 + message.length, bytes.length);
+        assertEquals("Échec ✓", new String(bytes, 53, message.length, StandardCharsets.UTF_8));
+        assertEquals(FEN.substring(0, FEN.indexOf(' ')), placement(bytes));
+
+        GameState none = state(null);
+        none.setFen("4k3/8/8/8/8/8/8/4K3 b - - 0 1");
+        byte[] empty = BinaryPositionMessageConverter.encode(none);
+        assertEquals(0x01, empty[48], "Black to move, no castling");
+        assertEquals((byte) 0xFF, empty[49], "No en-passant square");
+        assertEquals(53, empty.length);
+    }
+
+    // The placement field of a FEN, read back from the board nibbles
+    private static String placement(byte[] bytes) {
+        StringBuilder fen = new StringBuilder();
+        for (int x = 7; x >= 0; x--) {
+            int empty = 0;
+            for (int y = 0; y < 8; y++) {
+                int sq = x * 8 + y;
+                int code = bytes[16 + sq / 2] >> (sq % 2 * 4) & 15;
+                if (code == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0)
+                    fen.append(empty);
+                empty = 0;
+                fen.append(PIECE_LETTERS.charAt(code - 1));
+            }
+            if (empty > 0)
+                fen.append(empty);
+            if (x > 0)
+                fen.append('/');
+        }
+        return fen.toString();
+    }
+
+    @Test
+    public void testFenLineAndHeaders() throws Exception {
+        MockHttpOutputMessage out = new MockHttpOutputMessage();
+        new FenMessageConverter().write(state("Error: 50% off\r\nSet-Cookie: x é"), FenMessageConverter.MEDIA_TYPE,
+                out);
+        assertEquals(FEN + "\n", out.getBodyAsString(StandardCharsets.US_ASCII));
+        HttpHeaders headers = out.getHeaders();
+        assertEquals("0b5e2c4a-1f3d-4e6a-9b8c-7d2e1f0a3b4c", headers.getFirst("X-Game-Id"));
+        assertEquals("true", headers.getFirst("X-Game-Success"));
+        assertEquals("Error: 50%25 off%0D%0ASet-Cookie: x %C3%A9", headers.getFirst("X-Game-Message"));
+    }
+}
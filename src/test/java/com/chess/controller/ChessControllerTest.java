@@ -0,0 +1,122 @@
+package com.chess.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "chess.journal.dir=")
+@AutoConfigureMockMvc
+public class ChessControllerTest {
+
+    private static final String MIDDLEGAME = "r1b1kb1r/pppp1ppp/2n2q2/4p3/2B1P3/2N2N2/PPPP1PPP/R1BQK2R w KQkq - 4 5";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    @Qualifier("searchExecutor")
+    private ThreadPoolExecutor searchExecutor;
+
+    @Autowired
+    @Qualifier("analysisExecutor")
+    private ThreadPoolExecutor analysisExecutor;
+
+    private String newGame() throws Exception {
+        String body = mvc.perform(post("/api/chess/games")).andExpect(status().isOk()).andReturn().getResponse()
+                .getContentAsString();
+        return body.replaceAll(".*\"gameId\":\"([^\"]+)\".*", "$1");
+    }
+
+    @Test
+    public void testETagsNameTheHistoryWindow() throws Exception {
+        String board = "/api/chess/games/" + newGame() + "/show-board";
+        mvc.perform(post(board.replace("show-board", "move")).contentType("application/json")
+                .content("{\"startX\":1,\"startY\":4,\"endX\":3,\"endY\":4}")).andExpect(status().isOk());
+
+        String tag = mvc.perform(get(board).param("sincePly", "1").param("notation", "uci"))
+                .andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(get(board).param("sincePly", "1").param("notation", "uci").header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isNotModified());
+
+        String full = mvc.perform(get(board).header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isOk()).andExpect(jsonPath("$.history[0]").value("e4"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(tag, full);
+        mvc.perform(get(board).param("sincePly", "-1").header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(board).param("notation", "lan").header(HttpHeaders.IF_NONE_MATCH, full))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testShowBoardNegotiatesTheWireFormat() throws Exception {
+        String board = "/api/chess/games/" + newGame() + "/show-board";
+        String start = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+        mvc.perform(get(board)).andExpect(content().contentTypeCompatibleWith("application/json"))
+                .andExpect(jsonPath("$.fen").value(start));
+        mvc.perform(get(board).accept("application/x-chess-fen"))
+                .andExpect(content().contentTypeCompatibleWith("application/x-chess-fen"))
+                .andExpect(content().string(start + "\n"));
+        byte[] binary = mvc.perform(get(board).accept("application/x-chess-position"))
+                .andExpect(content().contentType("application/x-chess-position"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(0x1E, binary[48], "White to move with all four castling rights");
+        mvc.perform(get(board).accept("image/png")).andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    public void testAnalysisStreamsEachIterationThenTheBestMove() throws Exception {
+        MvcResult result = mvc.perform(get("/api/chess/analysis").param("fen", MIDDLEGAME)
+                .param("maxNodes", "100000")).andExpect(request().asyncStarted()).andReturn();
+        result.getAsyncResult(30_000);
+
+        String stream = result.getResponse().getContentAsString();
+        assertTrue(result.getResponse().getContentType().startsWith("text/event-stream"));
+        String[] events = stream.split("\n\n");
+        assertTrue(events.length >= 2, stream);
+        int depth = 0;
+        for (int i = 0; i < events.length - 1; i++) {
+            assertTrue(events[i].startsWith("event:info\ndata:{\"depth\":"), events[i]);
+            int next = Integer.parseInt(events[i].replaceAll("(?s).*\"depth\":(\\d+).*", "$1"));
+            assertTrue(next > depth, "Depths only grow: " + stream);
+            depth = next;
+        }
+        assertTrue(events[events.length - 1].matches("event:bestmove\ndata:[a-h][1-8][a-h][1-8]"),
+                events[events.length - 1]);
+    }
+
+    @Test
+    public void testClosingTheAnalysisStreamStopsTheSearch() throws Exception {
+        // No movetime or node limit: only the client going away ends this search
+        MvcResult result = mvc.perform(get("/api/chess/analysis").param("fen", MIDDLEGAME))
+                .andExpect(request().asyncStarted()).andReturn();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!result.getResponse().getContentAsString().contains("event:info")) {
+            assertTrue(System.currentTimeMillis() < deadline, "No iteration was streamed");
+            Thread.sleep(10);
+        }
+        assertEquals(1, analysisExecutor.getActiveCount(), "Still searching after the first iteration");
+        assertEquals(0, searchExecutor.getActiveCount(), "Analysis must leave the move executor free");
+
+        result.getRequest().getAsyncContext().complete();
+        deadline = System.currentTimeMillis() + 10_000;
+        while (analysisExecutor.getActiveCount() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "The search outlived its stream");
+            Thread.sleep(10);
+        }
+        assertFalse(result.getResponse().getContentAsString().contains("event:bestmove"));
+    }
+}
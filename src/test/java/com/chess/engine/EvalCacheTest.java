@@ -0,0 +1,51 @@
+package com.chess.engine;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvalCacheTest {
+
+    @Test
+    public void testPawnStructureTerms() {
+        // White's d-pawn is passed, Black's a-pawns are doubled and isolated
+        int pawns = Evaluator.pawnStructure(Position.fromFen("4k3/p7/p7/3P4/8/8/8/4K3 w - - 0 1"));
+        assertTrue(Evaluator.middlegameOf(pawns) > 0);
+        assertTrue(Evaluator.endgameOf(pawns) > Evaluator.middlegameOf(pawns));
+
+        // Mirrored colours score the same for the other side
+        int mirrored = Evaluator.pawnStructure(Position.fromFen("4k3/8/8/8/3p4/P7/P7/4K3 b - - 0 1"));
+        assertEquals(-Evaluator.middlegameOf(pawns), Evaluator.middlegameOf(mirrored));
+        assertEquals(-Evaluator.endgameOf(pawns), Evaluator.endgameOf(mirrored));
+
+        // Pawns blocking each other, or an enemy pawn on an adjacent file ahead, are not passed
+        assertEquals(0, Evaluator.pawnStructure(Position.fromFen("4k3/8/3p4/3P4/8/8/8/4K3 w - - 0 1")));
+        assertEquals(0, Evaluator.pawnStructure(Position.fromFen("4k3/2p5/8/3P4/8/8/8/4K3 w - - 0 1")));
+    }
+
+    @Test
+    public void testCachedEvaluationMatchesFreshEvaluation() {
+        Position pos = Position.fromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        EvalCache cache = new EvalCache();
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        for (int ply = 0; ply < 80; ply++) {
+            int count = generator.generateLegal(pos, moves, 0);
+            if (count == 0)
+                break;
+            // Score every child twice: the second pass must come from the cache and agree
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < count; i++) {
+                    pos.makeMove(moves[i]);
+                    assertEquals(Evaluator.evaluate(pos), cache.evaluate(pos), Moves.toUci(moves[i]));
+                    pos.unmakeMove(moves[i]);
+                }
+            }
+            pos.makeMove(moves[(ply * 7) % count]);
+        }
+        assertTrue(cache.getEvalHitRate() >= 0.5, "eval hit rate " + cache.getEvalHitRate());
+        // Most children leave the pawns alone, so the pawn table answers for them
+        assertTrue(cache.getPawnHitRate() > 0.5, "pawn hit rate " + cache.getPawnHitRate());
+        assertEquals(cache.getEvalProbes() - cache.getEvalHits(), cache.getPawnProbes());
+    }
+}
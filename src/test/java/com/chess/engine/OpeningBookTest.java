@@ -0,0 +1,91 @@
+package com.chess.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+public class OpeningBookTest {
+
+    private static final String PGN = "[Event \"a\"]\n[Result \"1-0\"]\n\n"
+            + "1. e4 {best by test} e5 (1... c5 2. Nf3) 2. Nf3 Nc6 3. Bb5 1-0\n\n"
+            + "[Event \"b\"]\n[Result \"0-1\"]\n\n"
+            + "1. d4 d5 2. c4 $1 dxc4 0-1\n\n"
+            + "[Event \"c\"]\n[Result \"1/2-1/2\"]\n\n"
+            + "1.e4 c5 2.Nf3 d6 1/2-1/2\n\n"
+            + "[Event \"d\"]\n[Result \"1/2-1/2\"]\n\n"
+            + "1. e4 e5 2. Nf3 1/2-1/2\n";
+
+    @TempDir
+    Path dir;
+
+    private OpeningBook build(int minGames) throws Exception {
+        BookBuilder builder = new BookBuilder(24);
+        builder.addPgn(new StringReader(PGN));
+        assertEquals(4, builder.getGames());
+        assertEquals(0, builder.getRejectedGames());
+        Path file = dir.resolve("book.bin");
+        builder.write(file, minGames);
+        return OpeningBook.open(file);
+    }
+
+    private static int probe(OpeningBook book, Position pos, SplittableRandom random) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = new MoveGenerator().generateLegal(pos, moves, 0);
+        return book.probe(pos, moves, count, random);
+    }
+
+    @Test
+    public void testWeightsFollowResults() throws Exception {
+        OpeningBook book = build(1);
+        Position start = Position.fromFen(Position.START_FEN);
+
+        // e4 scored a win and two draws, d4 a loss: d4 is never played
+        assertEquals("e2e4", Moves.toUci(probe(book, start, null)));
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 50; i++)
+            assertEquals("e2e4", Moves.toUci(probe(book, start, random)));
+
+        // e5 and c5 drew once each (the variation in game "a" does not count), so both are played
+        start.makeMove(San.parse(start, "e4"));
+        int replies = 0;
+        for (int i = 0; i < 200; i++)
+            replies |= Moves.toUci(probe(book, start, random)).equals("e7e5") ? 1 : 2;
+        assertEquals(3, replies, "both e5 and c5 should be chosen");
+    }
+
+    @Test
+    public void testUnknownPositionAndMinGames() throws Exception {
+        OpeningBook book = build(2);
+        Position start = Position.fromFen(Position.START_FEN);
+        assertEquals("e2e4", Moves.toUci(probe(book, start, null)));
+        assertEquals(3, book.size()); // 1. e4, 1... e5 and 2. Nf3 were each played twice
+        assertEquals(Moves.NONE, probe(book, Position.fromFen("8/8/8/4k3/8/8/8/4K3 w - - 0 1"), null));
+    }
+
+    @Test
+    public void testSanDisambiguationAndPromotion() {
+        Position pos = Position.fromFen("r3k2r/1P6/8/8/8/2N3N1/8/R3K2R w KQkq - 0 1");
+        assertEquals("g3e4", Moves.toUci(San.parse(pos, "Nge4")));
+        assertEquals(Moves.NONE, San.parse(pos, "Ne4")); // Ambiguous
+        assertEquals("b7a8n", Moves.toUci(San.parse(pos, "bxa8=N+")));
+        assertEquals("e1c1", Moves.toUci(San.parse(pos, "O-O-O")));
+        assertEquals(Moves.NONE, San.parse(pos, "b8")); // Promotion piece missing
+    }
+
+    @Test
+    public void testSanWriting() {
+        String fen = "r3k2r/1P6/8/8/8/2N3N1/8/R3K2R w KQkq - 0 1";
+        Position pos = Position.fromFen(fen);
+        assertEquals("Nge4", San.toSan(pos, San.parse(pos, "Nge4")));
+        assertEquals("bxa8=Q+", San.toSan(pos, San.parse(pos, "bxa8=Q")));
+        assertEquals("O-O-O", San.toSan(pos, San.parse(pos, "O-O-O")));
+        assertEquals(fen, pos.toFen(), "Writing a move must not change the position");
+
+        Position rooks = Position.fromFen("4k3/8/8/R7/8/8/8/R3K3 w - - 0 1");
+        assertEquals("R1a3", San.toSan(rooks, San.parse(rooks, "R1a3")));
+    }
+}
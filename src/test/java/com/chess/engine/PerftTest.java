@@ -0,0 +1,69 @@
+package com.chess.engine;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Node counts from the Chess Programming Wiki perft results page. Depths are kept low enough for a normal
+ * test run; raise them locally when touching the move generator.
+ */
+public class PerftTest {
+
+    private final Perft perft = new Perft();
+
+    private void assertPerft(String fen, long... expected) {
+        Position pos = Position.fromFen(fen);
+        for (int depth = 1; depth <= expected.length; depth++) {
+            assertEquals(expected[depth - 1], perft.perft(pos, depth), "Depth " + depth + " of " + fen);
+        }
+        assertEquals(fen.split(" ")[0], pos.toFen().split(" ")[0], "Position not restored after perft");
+    }
+
+    @Test
+    public void testStartPosition() {
+        assertPerft(Position.START_FEN, 20, 400, 8902, 197281);
+    }
+
+    @Test
+    public void testKiwipete() {
+        assertPerft("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 48, 2039, 97862);
+    }
+
+    @Test
+    public void testEndgameWithEnPassantPins() {
+        assertPerft("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191, 2812, 43238);
+    }
+
+    @Test
+    public void testPromotionsAndCastlingRights() {
+        assertPerft("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 6, 264, 9467, 422333);
+    }
+
+    @Test
+    public void testPosition5() {
+        assertPerft("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 44, 1486, 62379);
+    }
+
+    @Test
+    public void testPosition6() {
+        assertPerft("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 46, 2079, 89890);
+    }
+
+    @Test
+    public void testHasLegalMove() {
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES * 2];
+        assertTrue(generator.hasLegalMove(Position.fromFen(Position.START_FEN), moves, MoveGenerator.MAX_MOVES));
+        // Fool's mate, then a stalemate: no legal move either way
+        assertFalse(generator.hasLegalMove(
+                Position.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3"), moves, 0));
+        assertFalse(generator.hasLegalMove(Position.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"), moves, 0));
+    }
+
+    @Test
+    public void testFenRoundTrip() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        assertEquals(fen, Position.fromFen(fen).toFen());
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen("8/8/8/8/8/8/8/8 w - - 0 1"));
+    }
+}
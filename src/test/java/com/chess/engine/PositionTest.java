@@ -0,0 +1,102 @@
+package com.chess.engine;
+
+import com.chess.model.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionTest {
+
+    @Test
+    public void testStartingBoardConversion() {
+        Position pos = Position.fromBoard(new Board(), true);
+
+        assertEquals(16, Long.bitCount(pos.occupancy(Position.WHITE)));
+        assertEquals(16, Long.bitCount(pos.occupancy(Position.BLACK)));
+        assertEquals(0xFF00L, pos.pieces(Position.WHITE, Position.PAWN));
+        assertEquals(Position.piece(Position.BLACK, Position.KING), pos.pieceAt(Position.square(7, 4)));
+        assertEquals(0xF, pos.castlingRights());
+        assertEquals(Position.NO_SQUARE, pos.enPassantSquare());
+        assertTrue(pos.isWhiteToMove());
+    }
+
+    @Test
+    public void testRoundTripKeepsPiecesAndCastlingFlags() {
+        Board board = new Board();
+        board.getBox(0, 7).getPiece().setMoved(true); // White h1 rook has moved
+        Position pos = Position.fromBoard(board, false);
+
+        Spot[][] boxes = pos.toBoxes();
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                Piece original = board.getBox(i, j).getPiece();
+                Piece copy = boxes[i][j].getPiece();
+                if (original == null) {
+                    assertNull(copy);
+                } else {
+                    assertEquals(original.getType(), copy.getType());
+                    assertEquals(original.isWhite(), copy.isWhite());
+                }
+            }
+        }
+        assertTrue(boxes[0][7].getPiece().hasMoved());
+        assertFalse(boxes[0][0].getPiece().hasMoved());
+        assertFalse(boxes[0][4].getPiece().hasMoved());
+        assertEquals(pos.castlingRights(), Position.fromBoard(pos.toBoard(), false).castlingRights());
+    }
+
+    @Test
+    public void testIncrementalHashMatchesRecomputedHash() {
+        Position pos = Position.fromBoard(new Board(), true);
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        // Walk a deterministic line long enough to castle, capture and promote in some games
+        for (int ply = 0; ply < 120; ply++) {
+            int count = generator.generateLegal(pos, moves, 0);
+            if (count == 0)
+                break;
+            pos.makeMove(moves[(ply * 7) % count]);
+            assertEquals(Zobrist.compute(pos), pos.hash(), "Hash drifted at ply " + ply);
+            assertEquals(Zobrist.computePawns(pos), pos.pawnHash(), "Pawn hash drifted at ply " + ply);
+        }
+    }
+
+    @Test
+    public void testIncrementalEvaluationSurvivesMakeAndUnmake() {
+        Position pos = Position.fromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int before = Evaluator.evaluate(pos);
+
+        int count = generator.generateLegal(pos, moves, 0);
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(moves[i]);
+            // A position rebuilt from scratch must score the same as the incrementally updated one
+            Position rebuilt = Position.fromFen(pos.toFen());
+            assertEquals(rebuilt.middlegameScore(Position.WHITE), pos.middlegameScore(Position.WHITE));
+            assertEquals(rebuilt.endgameScore(Position.BLACK), pos.endgameScore(Position.BLACK));
+            assertEquals(rebuilt.phase(), pos.phase());
+            assertEquals(Evaluator.evaluate(rebuilt), Evaluator.evaluate(pos), Moves.toUci(moves[i]));
+            pos.unmakeMove(moves[i]);
+        }
+        assertEquals(before, Evaluator.evaluate(pos));
+    }
+
+    @Test
+    public void testStartingPositionIsBalanced() {
+        Position pos = Position.fromFen(Position.START_FEN);
+        assertEquals(0, Evaluator.evaluate(pos));
+        assertEquals(Evaluator.MAX_PHASE, pos.phase());
+        assertEquals(pos.material(Position.WHITE), pos.material(Position.BLACK));
+    }
+
+    @Test
+    public void testMalformedFenFieldsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen("4k3/8/8/8/8/8/8/4K3 x - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen("4k3/8/8/8/8/8/8/4K3 white - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen("4k3/8/8/8/8/8/8/4K3 w X - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen("4k3/8/8/8/8/8/8/4K3 w - z9 0 1"));
+        assertFalse(Position.fromFen("4k3/8/8/8/8/8/8/4K3 b - - 0 1").isWhiteToMove());
+        assertTrue(Position.fromFen("4k3/8/8/8/8/8/8/4K3").isWhiteToMove());
+    }
+}
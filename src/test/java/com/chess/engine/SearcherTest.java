@@ -0,0 +1,99 @@
+package com.chess.engine;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearcherTest {
+
+    // Runs a fixed-depth search with the given searcher and returns its move in UCI notation
+    private static String search(Searcher searcher, String fen, int depth) {
+        Position pos = Position.fromFen(fen);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = new MoveGenerator().generateLegal(pos, moves, 0);
+        return Moves.toUci(searcher.search(pos, moves, count, depth));
+    }
+
+    private static Searcher searcher(SearchOptions options) {
+        return new Searcher(new TranspositionTable(16), options);
+    }
+
+    @Test
+    public void testPruningStillFindsAQuietMate() {
+        // Mate in three that opens with a quiet king move, the kind LMR and futility look at last
+        String fen = "6k1/8/4K3/8/8/8/8/1R6 w - - 0 1";
+        Searcher pruned = searcher(SearchOptions.ALL);
+        assertEquals("e6f6", search(pruned, fen, 12));
+        assertEquals(3, Searcher.mateIn(pruned.getBestScore()));
+    }
+
+    @Test
+    public void testNullMoveSkipsPawnEndings() {
+        // Kings in opposition: whoever must move gives ground, so passing would misjudge both positions
+        for (String fen : new String[] { "8/8/8/2k5/2P5/2K5/8/8 w - - 0 1", "8/8/8/3k4/8/3K4/3P4/8 w - - 0 1" }) {
+            Searcher full = searcher(SearchOptions.NONE);
+            Searcher pruned = searcher(SearchOptions.ALL);
+            search(full, fen, 12);
+            search(pruned, fen, 12);
+            assertEquals(full.getBestScore(), pruned.getBestScore(), fen);
+        }
+    }
+
+    @Test
+    public void testPruningCutsTheTreeButKeepsTheMove() {
+        String fen = "r1b1kb1r/pppp1ppp/2n2q2/4p3/2B1P3/2N2N2/PPPP1PPP/R1BQK2R w KQkq - 4 5";
+        Searcher pruned = searcher(SearchOptions.ALL);
+        Searcher full = searcher(SearchOptions.NONE);
+        assertEquals("c3d5", search(pruned, fen, 7));
+        assertEquals("c3d5", search(full, fen, 7));
+        assertTrue(pruned.getNodes() * 10 < full.getNodes(), pruned.getNodes() + " vs " + full.getNodes() + " nodes");
+    }
+
+    @Test
+    public void testPooledSearchersAreReusedAfterAStop() {
+        String fen = "r1b1kb1r/pppp1ppp/2n2q2/4p3/2B1P3/2N2N2/PPPP1PPP/R1BQK2R w KQkq - 4 5";
+        Position root = Position.fromFen(fen);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = new MoveGenerator().generateLegal(root, moves, 0);
+        SearcherPool pool = new SearcherPool(new TranspositionTable(16), SearchOptions.ALL);
+
+        // Stopped before it starts: no iteration completes
+        ParallelSearch stopped = new ParallelSearch(pool, null, 1);
+        stopped.stop();
+        stopped.search(root, moves, count, SearchLimits.depth(6));
+        assertEquals(0, stopped.getCompletedDepth());
+
+        // The next search gets the same searcher back, without the old stop request
+        Searcher pooled = pool.acquire();
+        pool.release(pooled);
+        ParallelSearch next = new ParallelSearch(pool, null, 1);
+        assertEquals("c3d5", Moves.toUci(next.search(root, moves, count, SearchLimits.depth(6))));
+        assertEquals(6, next.getCompletedDepth());
+        assertSame(pooled, pool.acquire());
+
+        // Both searches' evaluations were counted when the searcher came back
+        assertTrue(pool.getEvalProbes() > 0);
+        assertTrue(pool.getEvalHits() > 0 && pool.getEvalHits() < pool.getEvalProbes());
+        assertEquals(pool.getEvalProbes() - pool.getEvalHits(), pool.getPawnProbes());
+    }
+
+    @Test
+    public void testPrivateTablesRepeatTheSameSearch() {
+        SearcherPool pool = SearcherPool.withPrivateTables(16, SearchOptions.ALL);
+        long[] nodes = new long[3];
+        int[] scores = new int[3];
+        String[] fens = { "r1b1kb1r/pppp1ppp/2n2q2/4p3/2B1P3/2N2N2/PPPP1PPP/R1BQK2R w KQkq - 4 5",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1" };
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        // The same position before and after an unrelated one: the reused searcher must not remember either
+        for (int i = 0; i < 3; i++) {
+            Position root = Position.fromFen(fens[i % 2]);
+            int count = new MoveGenerator().generateLegal(root, moves, 0);
+            ParallelSearch search = new ParallelSearch(pool, null, 1);
+            search.search(root, moves, count, SearchLimits.depth(6));
+            nodes[i] = search.getNodes();
+            scores[i] = search.getBestScore();
+        }
+        assertEquals(nodes[0], nodes[2]);
+        assertEquals(scores[0], scores[2]);
+    }
+}
@@ -0,0 +1,37 @@
+package com.chess.engine;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StaticExchangeTest {
+
+    private final StaticExchange exchange = new StaticExchange();
+
+    private int see(String fen, String from, String to) {
+        Position pos = Position.fromFen(fen);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = new MoveGenerator().generateCaptures(pos, moves, 0);
+        for (int i = 0; i < count; i++) {
+            if (Moves.from(moves[i]) == Position.parseSquare(from) && Moves.to(moves[i]) == Position.parseSquare(to))
+                return exchange.evaluate(pos, moves[i]);
+        }
+        throw new AssertionError("No capture " + from + to + " in " + fen);
+    }
+
+    @Test
+    public void testUndefendedPieceIsWonOutright() {
+        assertEquals(Evaluator.pieceValue(Position.PAWN), see("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1", "e5"));
+    }
+
+    @Test
+    public void testDefendedPawnCostsTheKnight() {
+        int expected = Evaluator.pieceValue(Position.PAWN) - Evaluator.pieceValue(Position.KNIGHT);
+        assertEquals(expected, see("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3", "e5"));
+    }
+
+    @Test
+    public void testXrayRecaptureIsCounted() {
+        // Rook takes a rook defended once; the queen behind it settles the exchange in White's favour
+        assertEquals(Evaluator.pieceValue(Position.ROOK), see("3r3k/8/8/3r4/8/8/3R4/3Q3K w - - 0 1", "d2", "d5"));
+    }
+}
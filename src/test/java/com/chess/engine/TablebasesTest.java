@@ -0,0 +1,69 @@
+package com.chess.engine;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+public class TablebasesTest {
+
+    @TempDir
+    static Path dir;
+
+    private static Tablebases tablebases;
+
+    @BeforeAll
+    public static void generate() throws Exception {
+        TablebaseGenerator generator = new TablebaseGenerator();
+        generator.generate("KPK"); // Also builds KQK and KRK for the promotions
+        for (Map.Entry<String, byte[]> table : generator.getTables().entrySet())
+            Files.write(dir.resolve(table.getKey()), table.getValue());
+        tablebases = Tablebases.open(dir);
+        assertEquals(3, tablebases.size());
+    }
+
+    private static int mateIn(String fen) {
+        return Searcher.mateIn(tablebases.probe(Position.fromFen(fen), 0));
+    }
+
+    @Test
+    public void testShortMatesAgreeWithSearch() {
+        String[] fens = { "8/k7/8/1K5Q/8/8/8/8 w - - 0 1", "8/8/8/3R4/2K5/8/8/k7 w - - 0 1",
+                "1K6/3k4/8/2q5/8/8/8/8 w - - 0 1", "8/8/8/8/5k2/7K/8/r7 b - - 0 1" };
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (String fen : fens) {
+            Position pos = Position.fromFen(fen);
+            int expected = mateIn(fen);
+            assertNotEquals(0, expected, fen);
+            int count = new MoveGenerator().generateLegal(pos, moves, 0);
+            Searcher searcher = new Searcher(new TranspositionTable(1), SearchOptions.NONE);
+            searcher.search(pos, moves, count, 2 * Math.abs(expected) + 1);
+            assertEquals(Searcher.mateIn(searcher.getBestScore()), expected, fen);
+        }
+    }
+
+    @Test
+    public void testKnownResults() {
+        assertEquals(0, mateIn("k7/8/K7/P7/8/8/8/8 w - - 0 1")); // Rook pawn, defender in the corner
+        assertTrue(mateIn("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1") < 0); // King on the sixth in front of the pawn
+        assertEquals(15, mateIn("8/8/8/3k4/8/8/8/KR6 w - - 0 1"));
+        assertEquals(0, tablebases.probe(Position.fromFen("8/8/8/4k3/8/8/8/4KB2 w - - 0 1"), 0));
+        assertEquals(Tablebases.NO_SCORE, tablebases.probe(Position.fromFen("8/8/8/4k3/8/8/8/2R1KB2 w - - 0 1"), 0));
+    }
+
+    @Test
+    public void testBestMoveMates() {
+        Position pos = Position.fromFen("k7/8/1K6/8/8/8/8/6Q1 w - - 0 1");
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = new MoveGenerator().generateLegal(pos, moves, 0);
+        assertEquals("g1g8", Moves.toUci(tablebases.bestMove(pos, moves, count)));
+
+        Position draw = Position.fromFen("k7/8/K7/P7/8/8/8/8 w - - 0 1");
+        count = new MoveGenerator().generateLegal(draw, moves, 0);
+        assertEquals(Moves.NONE, tablebases.bestMove(draw, moves, count)); // Drawn: left to the search
+    }
+}
@@ -0,0 +1,109 @@
+package com.chess.service;
+
+import com.chess.engine.Moves;
+import com.chess.engine.ParallelSearch;
+import com.chess.engine.Position;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class AiJobServiceTest {
+
+    private ThreadPoolExecutor executor;
+    private GameRegistry registry;
+    private ChessService chessService;
+    private AiJobService jobs;
+
+    @BeforeEach
+    public void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        registry = new GameRegistry(10, 60);
+        chessService = new ChessService(registry, 2000);
+        jobs = new AiJobService(new ChessAI(1, 1, true, "all"), registry, executor, 60);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testJobFindsMove() throws Exception {
+        UUID game = UUID.fromString(chessService.createGame().getGameId());
+        AiJob job = jobs.submit(game, "HARD", 5000L, 2000L);
+
+        assertNotNull(job.getResult().get(10, TimeUnit.SECONDS));
+        assertEquals(AiJob.Status.DONE, job.getStatus());
+        assertSame(job, jobs.get(job.getId()));
+    }
+
+    @Test
+    public void testJobNamesItsMoveInUci() throws Exception {
+        AiJob job = jobs.submit(Position.fromFen("8/P6k/8/8/8/8/8/K7 w - - 0 1"), "HARD", 5000L, 2000L);
+
+        assertNotNull(job.getResult().get(10, TimeUnit.SECONDS));
+        assertEquals("a7a8q", job.getUci());
+    }
+
+    @Test
+    public void testResetCancelsRunningSearch() {
+        UUID game = UUID.fromString(chessService.createGame().getGameId());
+        AiJob running = jobs.submit(game, "HARD", 10000L, null);
+        AiJob queued = jobs.submit(game, "HARD", 10000L, null);
+
+        chessService.resetBoard(game);
+
+        assertThrows(CancellationException.class, () -> running.getResult().get(10, TimeUnit.SECONDS));
+        assertEquals(AiJob.Status.CANCELLED, running.getStatus());
+        assertEquals(AiJob.Status.CANCELLED, queued.getStatus());
+        assertTrue(executor.getQueue().isEmpty());
+    }
+
+    @Test
+    public void testFullQueueIsRejected() {
+        UUID game = UUID.fromString(chessService.createGame().getGameId());
+        jobs.submit(game, "HARD", 10000L, null);
+        jobs.submit(game, "HARD", 10000L, null);
+
+        assertThrows(SearchQueueFullException.class, () -> jobs.submit(game, "HARD", 10000L, null));
+        assertTrue(chessService.deleteGame(game)); // Cancels both searches
+    }
+
+    @Test
+    public void testDeterministicSearchesRunningTogetherMatchOneAlone() throws Exception {
+        ChessAI ai = new ChessAI(1, 1, true, "all");
+        // Searches make their moves on the root, so each one gets a copy
+        String fen = "r1b1kb1r/pppp1ppp/2n2q2/4p3/2B1P3/2N2N2/PPPP1PPP/R1BQK2R w KQkq - 4 5";
+        Callable<String> search = () -> {
+            ParallelSearch s = ai.newSearch();
+            int move = ai.findMove(s, Position.fromFen(fen), "HARD", 10_000L, 200_000L);
+            return Moves.toUci(move) + " depth " + s.getCompletedDepth() + " score " + s.getBestScore();
+        };
+        String alone = search.call();
+        assertEquals(alone, search.call(), "Equal requests must give equal results");
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++)
+                results.add(pool.submit(search));
+            for (Future<String> result : results)
+                assertEquals(alone, result.get(60, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.chess.service;
+
+import com.chess.dto.GameState;
+import com.chess.dto.LegalMoves;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class ChessServiceTest {
+
+    @Test
+    public void testStatusIsRecomputedOncePerMove() {
+        GameRegistry registry = new GameRegistry(10, 60);
+        ChessService service = new ChessService(registry, 2000);
+        UUID id = UUID.fromString(service.createGame().getGameId());
+        GameSession game = registry.get(id);
+
+        // Fool's mate
+        service.movePiece(id, 1, 5, 2, 5, null);
+        service.movePiece(id, 6, 4, 4, 4, null);
+        service.movePiece(id, 1, 6, 3, 6, null);
+        long before = game.getVersion();
+        GameState state = service.movePiece(id, 7, 3, 3, 7, null);
+
+        assertEquals(before + 1, game.getVersion());
+        assertTrue(state.isCheckmate());
+        assertEquals("Checkmate!", state.getMessage());
+        assertSame(game.getStatus(), game.getStatus(), "Reads must reuse the cached status");
+        assertEquals(0, game.getStatus().getLegalMoveCount());
+
+        GameState rejected = service.movePiece(id, 1, 0, 2, 0, null);
+        assertFalse(rejected.isSuccess());
+        assertEquals(before + 1, game.getVersion());
+    }
+
+    @Test
+    public void testRejectedMovesStillExplainTheRule() {
+        ChessService service = new ChessService();
+        UUID id = UUID.fromString(service.createGame().getGameId());
+        assertEquals("Error: Invalid Move for Rook", service.movePiece(id, 0, 0, 3, 0, null).getMessage());
+    }
+
+    @Test
+    public void testLegalMovesAreBitmasksCachedPerVersion() {
+        ChessService service = new ChessService();
+        UUID id = UUID.fromString(service.createGame().getGameId());
+
+        LegalMoves start = service.getLegalMoves(id);
+        assertEquals("000000000000ff42", start.getFrom()); // Pawns, b1 and g1
+        assertEquals(10, start.getTo().size());
+        assertEquals("0000000010100000", start.getTo().get(12)); // e2: e3 and e4
+        assertSame(start, service.getLegalMoves(id), "Reads of the same version must reuse the masks");
+
+        LegalMoves knight = service.getLegalMoves(id, 0, 6);
+        assertEquals("0000000000000040", knight.getFrom());
+        assertEquals("0000000000a00000", knight.getTo().get(6)); // f3 and h3
+        assertEquals("0000000000000000", service.getLegalMoves(id, 7, 4).getFrom(), "Not Black's turn");
+
+        service.movePiece(id, 1, 4, 3, 4, null);
+        LegalMoves reply = service.getLegalMoves(id);
+        assertEquals(start.getVersion() + 1, reply.getVersion());
+        assertEquals("42ff000000000000", reply.getFrom());
+        assertThrows(IllegalArgumentException.class, () -> service.getLegalMoves(id, 8, 0));
+    }
+
+    @Test
+    public void testHistoryIsRenderedFromAPly() {
+        ChessService service = new ChessService();
+        UUID id = UUID.fromString(service.createGame().getGameId());
+        service.movePiece(id, 1, 5, 2, 5, null);
+        service.movePiece(id, 6, 4, 4, 4, null);
+        service.movePiece(id, 1, 6, 3, 6, null);
+
+        GameState mate = service.movePiece(id, 7, 3, 3, 7, null, 3, null);
+        assertEquals(List.of("Qh4#"), mate.getHistory());
+        assertEquals(3, mate.getHistoryStart());
+        assertEquals(4, mate.getPlyCount());
+        assertEquals(List.of("f3", "e5", "g4", "Qh4#"), service.getGameState(id).getHistory());
+        assertEquals(List.of("g2g4", "d8h4"), service.getGameState(id, 2, "uci").getHistory());
+        GameState ahead = service.getGameState(id, 10, null);
+        assertTrue(ahead.getHistory().isEmpty());
+        assertEquals(4, ahead.getHistoryStart());
+
+        // A takeback and a different move replace the rendered ply
+        service.undoLastMove(id);
+        assertEquals(List.of("Qe7"), service.movePiece(id, 7, 3, 6, 4, null, 3, "san").getHistory());
+        assertThrows(IllegalArgumentException.class, () -> service.getGameState(id, -1, null));
+        assertThrows(IllegalArgumentException.class, () -> service.getGameState(id, 0, "lan"));
+    }
+
+    @Test
+    public void testGamesFromAFenKeepEnPassantAndCastlingRights() {
+        ChessService service = new ChessService();
+        String fen = "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3";
+        UUID id = UUID.fromString(service.createGame(fen).getGameId());
+        assertTrue(service.getGameState(id).getFen().contains(" w KQkq f6 "), service.getGameState(id).getFen());
+        assertEquals("0000300000000000", service.getLegalMoves(id, 4, 4).getTo().get(36)); // e5: e6 and f6
+        GameState capture = service.movePiece(id, 4, 4, 5, 5, null);
+        assertTrue(capture.isSuccess(), capture.getMessage());
+        assertNull(capture.getBoard()[4][5].getPiece(), "The captured pawn leaves f5");
+        assertEquals(List.of("exf6"), capture.getHistory());
+
+        UUID rooks = UUID.fromString(service.createGame("r3k2r/8/8/8/8/8/8/R3K2R w Kq - 0 1").getGameId());
+        assertFalse(service.movePiece(rooks, 0, 4, 0, 2, null).isSuccess(), "White may not castle queenside");
+        assertTrue(service.movePiece(rooks, 0, 4, 0, 6, null).isSuccess());
+        assertFalse(service.movePiece(rooks, 7, 4, 7, 6, null).isSuccess(), "Black may not castle kingside");
+        assertTrue(service.movePiece(rooks, 7, 4, 7, 2, null).isSuccess());
+    }
+
+    @Test
+    public void testTakebacksPastTheUndoRingReplayTheHistory() {
+        ChessService service = new ChessService();
+        UUID id = UUID.fromString(service.createGame().getGameId());
+        service.movePiece(id, 1, 4, 3, 4, null);
+        service.movePiece(id, 6, 3, 4, 3, null);
+        service.movePiece(id, 3, 4, 4, 3, null);
+        service.movePiece(id, 7, 3, 4, 3, null);
+        for (int i = 0; i < 75; i++) {
+            service.movePiece(id, 0, 6, 2, 5, null);
+            service.movePiece(id, 7, 6, 5, 5, null);
+            service.movePiece(id, 2, 5, 0, 6, null);
+            service.movePiece(id, 5, 5, 7, 6, null);
+        }
+        assertEquals(304, service.getGameState(id).getHistory().size());
+
+        // Back past exd5, whose captured pawn only the ring remembered
+        for (int i = 0; i < 302; i++)
+            service.undoLastMove(id);
+        service.movePiece(id, 0, 1, 2, 2, null);
+        service.movePiece(id, 4, 3, 3, 3, null);
+        assertEquals(List.of("e4", "d5", "Nc3", "d4"), service.getGameState(id).getHistory());
+    }
+
+    @Test
+    public void testUndoRestoresAnEnPassantCapture() {
+        ChessService service = new ChessService();
+        UUID id = UUID.fromString(service.createGame().getGameId());
+        service.movePiece(id, 1, 4, 3, 4, null);
+        service.movePiece(id, 6, 7, 5, 7, null);
+        service.movePiece(id, 3, 4, 4, 4, null);
+        String before = service.movePiece(id, 6, 3, 4, 3, null).getFen();
+
+        GameState capture = service.movePiece(id, 4, 4, 5, 3, null, 4, null);
+        assertEquals(List.of("exd6"), capture.getHistory());
+        assertEquals(before, service.undoLastMove(id).getFen());
+    }
+
+    @Test
+    public void testBodiesAreSerializedOncePerVersion() {
+        ChessService service = new ChessService();
+        UUID id = UUID.fromString(service.createGame().getGameId());
+        AtomicInteger serialized = new AtomicInteger();
+        Function<GameState, byte[]> serializer = state -> {
+            serialized.incrementAndGet();
+            return state.getFen().getBytes(StandardCharsets.US_ASCII);
+        };
+
+        String start = service.getETag(id, 0, null);
+        GameStateBody body = service.getGameStateBody(id, 0, null, serializer);
+        assertEquals(start, body.getETag());
+        assertSame(body, service.getGameStateBody(id, 0, "san", serializer));
+        GameStateBody uci = service.getGameStateBody(id, 0, "uci", serializer);
+        assertNotSame(body, uci);
+        assertEquals(2, serialized.get());
+        assertNotEquals(start, uci.getETag(), "Each notation is a different body");
+        assertEquals(uci.getETag(), service.getETag(id, 0, "uci"));
+
+        service.movePiece(id, 1, 4, 3, 4, null);
+        String moved = service.getETag(id, 0, null);
+        assertNotEquals(start, moved);
+        assertEquals(moved, service.getGameStateBody(id, 0, null, serializer).getETag());
+        assertNotEquals(moved, service.getETag(id, 1, null), "Each history window is a different body");
+        assertEquals(service.getETag(id, 1, null), service.getETag(id, 40, null), "Both windows are empty");
+        assertEquals(3, serialized.get());
+        assertThrows(IllegalArgumentException.class, () -> service.getETag(id, -1, null));
+        service.undoLastMove(id);
+        assertNotEquals(start, service.getETag(id, 0, null), "Versions never repeat, even for a position seen before");
+    }
+
+    @Test
+    public void testUpdatesAreSerializedOnceForAllWatchers() throws Exception {
+        GameRegistry registry = new GameRegistry(10, 60);
+        GameUpdateService updates = new GameUpdateService(new ObjectMapper(), registry, 1);
+        ChessService service = new ChessService(registry, GameJournal.disabled(), updates, 2000);
+        UUID id = UUID.fromString(service.createGame().getGameId());
+        service.movePiece(id, 1, 4, 3, 4, null);
+
+        BlockingQueue<WebSocketMessage<?>> first = new LinkedBlockingQueue<>();
+        BlockingQueue<WebSocketMessage<?>> second = new LinkedBlockingQueue<>();
+        service.watch(id, watcher("a", first));
+        service.watch(id, watcher("b", second));
+        String state = text(first.poll(5, TimeUnit.SECONDS));
+        assertTrue(state.contains("\"type\":\"state\""), state);
+        assertTrue(state.contains("\"history\":[\"e4\"]"), state);
+        assertNotNull(second.poll(5, TimeUnit.SECONDS));
+
+        service.movePiece(id, 6, 4, 4, 4, null);
+        BinaryMessage move = (BinaryMessage) first.poll(5, TimeUnit.SECONDS);
+        assertSame(move.getPayload().array(), ((BinaryMessage) second.poll(5, TimeUnit.SECONDS)).getPayload().array(),
+                "Watchers must share one encoded message");
+        String delta = text(move);
+        assertTrue(delta.contains("\"type\":\"move\"") && delta.contains("\"san\":\"e5\"")
+                && delta.contains("\"uci\":\"e7e5\"") && delta.contains("\"plyCount\":2"), delta);
+        assertFalse(delta.contains("history"), delta);
+
+        service.undoLastMove(id);
+        assertTrue(text(first.poll(5, TimeUnit.SECONDS)).contains("\"type\":\"undo\""));
+        assertEquals(2, updates.getWatcherCount(id));
+        service.unwatch(id, watcher("a", first));
+        assertEquals(1, updates.getWatcherCount(id));
+        service.unwatch(id, watcher("b", second));
+        // An update still being handed out keeps the channel until the dispatcher finishes with it
+        long deadline = System.currentTimeMillis() + 5000;
+        while (updates.getChannelCount() > 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(0, updates.getChannelCount(), "The last watcher leaving removes the channel");
+        updates.close();
+    }
+
+    @Test
+    public void testAStalledWatcherIsDroppedWithoutDelayingTheOthers() throws Exception {
+        GameRegistry registry = new GameRegistry(10, 60);
+        GameUpdateService updates = new GameUpdateService(new ObjectMapper(), registry, 1);
+        ChessService service = new ChessService(registry, GameJournal.disabled(), updates, 2000);
+        UUID id = UUID.fromString(service.createGame().getGameId());
+        BlockingQueue<String> fast = new LinkedBlockingQueue<>();
+        BlockingQueue<String> stalled = new LinkedBlockingQueue<>();
+        CountDownLatch stalledClosed = new CountDownLatch(1);
+        service.watch(id, asyncWatcher("fast", true, fast, new CountDownLatch(1)));
+        service.watch(id, asyncWatcher("stalled", false, stalled, stalledClosed));
+
+        // The stalled client never finishes its first send, so every later update queues behind it
+        int updatesSent = 1;
+        for (; updatesSent < GameUpdateService.MAX_PENDING + 4; updatesSent += 2) {
+            service.movePiece(id, 0, 6, 2, 5, null);
+            service.undoLastMove(id);
+        }
+        for (int i = 0; i < updatesSent; i++)
+            assertNotNull(fast.poll(5, TimeUnit.SECONDS), "The fast watcher missed update " + i);
+        assertTrue(stalledClosed.await(5, TimeUnit.SECONDS), "A watcher too far behind must be dropped");
+        assertEquals(1, stalled.size());
+        assertEquals(1, updates.getWatcherCount(id));
+        updates.close();
+    }
+
+    // A session on the container's asynchronous endpoint whose sends complete at once, or never
+    private static WebSocketSession asyncWatcher(String id, boolean completes, BlockingQueue<String> sent,
+            CountDownLatch closed) {
+        RemoteEndpoint.Async remote = (RemoteEndpoint.Async) Proxy.newProxyInstance(
+                RemoteEndpoint.Async.class.getClassLoader(), new Class<?>[] { RemoteEndpoint.Async.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("sendBinary") && args.length == 2) {
+                        sent.add(StandardCharsets.UTF_8.decode((ByteBuffer) args[0]).toString());
+                        if (completes)
+                            ((SendHandler) args[1]).onResult(new SendResult());
+                    }
+                    return null;
+                });
+        Session container = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                new Class<?>[] { Session.class }, (proxy, method, args) -> method.getName().equals("getAsyncRemote")
+                        ? remote : null);
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                new Class<?>[] { WebSocketSession.class, NativeWebSocketSession.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getId" -> id;
+                    case "getNativeSession" -> args != null && args[0] == Session.class ? container : null;
+                    case "close" -> {
+                        closed.countDown();
+                        yield null;
+                    }
+                    case "hashCode" -> id.hashCode();
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    private static String text(WebSocketMessage<?> message) {
+        return StandardCharsets.UTF_8.decode(((BinaryMessage) message).getPayload()).toString();
+    }
+
+    // Records what is sent to it; the other calls are not needed by the service
+    private static WebSocketSession watcher(String id, BlockingQueue<WebSocketMessage<?>> sent) {
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                new Class<?>[] { WebSocketSession.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "getId" -> id;
+                    case "sendMessage" -> {
+                        sent.add((WebSocketMessage<?>) args[0]);
+                        yield null;
+                    }
+                    case "isOpen" -> true;
+                    case "hashCode" -> id.hashCode();
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,128 @@
+package com.chess.service;
+
+import com.chess.dto.GameState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class GameJournalTest {
+
+    @TempDir
+    Path dir;
+    private GameJournal journal;
+
+    // A fresh service over the journal directory, as after a restart; nothing is closed or flushed before it.
+    // A crashed process no longer prepares segments, so the previous journal finishes doing so first
+    private ChessService start(GameRegistry[] registry) throws Exception {
+        if (journal != null)
+            journal.awaitNextSegments();
+        journal = new GameJournal(dir.toString(), 2, 1, 20);
+        registry[0] = new GameRegistry(100, 60, journal);
+        ChessService service = new ChessService(registry[0], journal, 2000);
+        service.recover();
+        return service;
+    }
+
+    @AfterEach
+    public void stopPreparingSegments() throws Exception {
+        journal.awaitNextSegments();
+        journal.close();
+    }
+
+    @Test
+    public void testGamesSurviveARestart() throws Exception {
+        GameRegistry[] registry = new GameRegistry[1];
+        ChessService service = start(registry);
+        UUID italian = UUID.fromString(service.createGame().getGameId());
+        service.movePiece(italian, 1, 4, 3, 4, null); // e4
+        service.movePiece(italian, 6, 4, 4, 4, null); // e5
+        service.movePiece(italian, 0, 6, 2, 5, null); // Nf3
+        service.movePiece(italian, 6, 3, 5, 3, null); // d6
+        service.undoLastMove(italian);
+        service.movePiece(italian, 7, 1, 5, 2, null); // Nc6
+        service.movePiece(italian, 0, 5, 3, 2, null); // Bc4
+        service.movePiece(italian, 7, 6, 5, 5, null); // Nf6
+        service.movePiece(italian, 0, 4, 0, 6, null); // O-O
+        UUID promotion = UUID.fromString(service.createGame("8/P6k/8/8/8/8/8/K7 w - - 0 1").getGameId());
+        assertTrue(service.movePiece(promotion, 6, 0, 7, 0, "KNIGHT").isSuccess());
+        UUID enPassant = UUID.fromString(
+                service.createGame("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3").getGameId());
+        UUID deleted = UUID.fromString(service.createGame().getGameId());
+        service.movePiece(deleted, 1, 0, 2, 0, null);
+        service.deleteGame(deleted);
+        service.movePiece(1, 3, 3, 3, null); // d4 in the default game
+        String italianFen = service.getGameState(italian).getFen();
+
+        ChessService restarted = start(registry);
+        GameState state = restarted.getGameState(italian);
+        assertEquals(italianFen, state.getFen());
+        assertEquals(7, state.getHistory().size());
+        assertEquals("N7/7k/8/8/8/8/8/K7 b - - 0 1", restarted.getGameState(promotion).getFen());
+        assertNotNull(restarted.getGameState(GameRegistry.DEFAULT_GAME_ID).getBoard()[3][3].getPiece());
+        assertThrows(GameNotFoundException.class, () -> restarted.getGameState(deleted));
+        assertTrue(restarted.movePiece(enPassant, 4, 4, 5, 5, null).isSuccess(), "exf6 en passant");
+
+        // Play continues, and undo still works across the restart
+        assertTrue(restarted.undoLastMove(italian).isWhiteTurn());
+        assertTrue(restarted.movePiece(italian, 0, 4, 0, 6, null).isSuccess());
+        assertEquals(italianFen, start(registry).getGameState(italian).getFen());
+    }
+
+    @Test
+    public void testSnapshotsCompactTheJournalAndTornRecordsAreIgnored() throws Exception {
+        GameRegistry[] registry = new GameRegistry[1];
+        ChessService service = start(registry);
+        UUID id = UUID.fromString(service.createGame().getGameId());
+        // More records than a 1 MB segment holds, so the shard rolls over while recording
+        for (int i = 0; i < 9000; i++) {
+            service.movePiece(id, 1, 4, 3, 4, null);
+            service.undoLastMove(id);
+        }
+        service.movePiece(id, 1, 4, 3, 4, null);
+        registry[0].snapshotJournal();
+        service.movePiece(id, 6, 4, 4, 4, null);
+        String fen = service.getGameState(id).getFen();
+        journal.awaitNextSegments();
+        assertEquals(4, segmentFiles().size(), "One fresh segment per shard after the snapshot, and its successor");
+
+        // A record half-written by a crash ends the segment without losing what came before
+        for (Path segment : segmentFiles())
+            tearFirstFreeRecord(segment);
+        ChessService restarted = start(registry);
+        assertEquals(fen, restarted.getGameState(id).getFen());
+        assertEquals(2, restarted.getGameState(id).getHistory().size());
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".log")).toList();
+        }
+    }
+
+    private static void tearFirstFreeRecord(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer record = ByteBuffer.allocate(GameJournal.RECORD_BYTES);
+            for (long offset = 0; offset < channel.size(); offset += GameJournal.RECORD_BYTES) {
+                record.clear();
+                channel.read(record, offset);
+                if (record.get(20) == 0) {
+                    record.clear();
+                    record.put(20, (byte) GameJournal.MOVE).putInt(16, 1_000_000);
+                    channel.write(record, offset);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.chess.service;
+
+import com.chess.dto.GameState;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameRegistryTest {
+
+    @Test
+    public void testGamesAreIndependent() {
+        ChessService service = new ChessService();
+        UUID first = UUID.fromString(service.createGame().getGameId());
+        UUID second = UUID.fromString(service.createGame().getGameId());
+
+        GameState state = service.movePiece(first, 1, 4, 3, 4, null); // e2-e4 in the first game only
+        assertTrue(state.isSuccess(), state.getMessage());
+        assertFalse(service.getGameState(first).isWhiteTurn());
+        assertTrue(service.getGameState(second).isWhiteTurn());
+        assertNotNull(service.getGameState(second).getBoard()[1][4].getPiece());
+        assertTrue(service.getGameState(GameRegistry.DEFAULT_GAME_ID).isWhiteTurn());
+    }
+
+    @Test
+    public void testFullRegistryEvictsLeastRecentlyUsedGame() {
+        GameRegistry registry = new GameRegistry(2, 60);
+        GameSession oldest = registry.create();
+        GameSession recent = registry.create();
+        recent.locked(() -> null);
+
+        GameSession newest = registry.create();
+
+        assertEquals(2, registry.size());
+        assertThrows(GameNotFoundException.class, () -> registry.get(oldest.getId()));
+        assertSame(recent, registry.get(recent.getId()));
+        assertSame(newest, registry.get(newest.getId()));
+    }
+
+    @Test
+    public void testConcurrentCreatesStayWithinTheLimit() throws Exception {
+        GameRegistry registry = new GameRegistry(50, 60);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger largest = new AtomicInteger();
+        List<Future<?>> creators = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            creators.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 2000; i++) {
+                    registry.create();
+                    largest.accumulateAndGet(registry.size(), Math::max);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> creator : creators)
+            creator.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(50, registry.size());
+        assertTrue(largest.get() <= 50, "Registry grew to " + largest.get() + " games");
+    }
+
+    @Test
+    public void testUnknownGameIsRejected() {
+        ChessService service = new ChessService();
+        assertThrows(GameNotFoundException.class, () -> service.getGameState(UUID.randomUUID()));
+        assertFalse(service.deleteGame(GameRegistry.DEFAULT_GAME_ID));
+    }
+}